@@ -5,24 +5,45 @@ import net.minecraft.registry.RegistryKeys;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.TeleportTarget;
 import net.minecraft.world.World;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
- * TeleportService implementation that performs actual cross-dimension moves
- * by issuing a server command to change the execution dimension, then tp @s.
- * After this cross-world hop, the listener sets the exact saved coordinates.
+ * TeleportService implementation that performs actual cross-dimension moves through the server's
+ * teleport API: the player is handed a TeleportTarget in the target world, so the dimension change
+ * and the destination coordinates travel together in one move (no command parsing or dispatch).
  */
 public class FabricTeleportService implements TeleportService {
     @Override
     public boolean teleport(ServerPlayerEntity player, String targetDimKey) {
+        // Same coordinates in the target world; the listener picks the final spot on the way
+        return teleport(player, targetDimKey,
+                new PositionData(player.getX(), player.getY(), player.getZ(), player.getYaw(), player.getPitch()));
+    }
+
+    @Override
+    public boolean teleport(ServerPlayerEntity player, String targetDimKey, PositionData pos) {
+        return move(player, targetDimKey, pos).success;
+    }
+
+    // The move itself is synchronous; the future only carries the target or the failure reason
+    @Override
+    public CompletableFuture<Result> teleportAsync(ServerPlayerEntity player, String targetDimKey, PositionData pos) {
+        if (pos == null) pos = new PositionData(player.getX(), player.getY(), player.getZ(), player.getYaw(), player.getPitch());
+        return CompletableFuture.completedFuture(move(player, targetDimKey, pos));
+    }
+
+    private Result move(ServerPlayerEntity player, String targetDimKey, PositionData pos) {
         try {
             // Validate the target world exists first
-            Identifier id = Identifier.of(targetDimKey);
-            RegistryKey<World> key = RegistryKey.of(RegistryKeys.WORLD, id);
+            RegistryKey<World> key = RegistryKey.of(RegistryKeys.WORLD, Identifier.of(targetDimKey));
             ServerWorld target = player.getServer().getWorld(key);
             if (target == null) {
                 MultiWorldPositions.LOGGER.warn("[MWP] Target world not found: {}", targetDimKey);
-                return false;
+                return Result.failed("target world not found: " + targetDimKey);
             }
 
             // Zero velocity to avoid anti-cheat flags and carryover motion
@@ -30,20 +51,19 @@ public class FabricTeleportService implements TeleportService {
             player.velocityModified = true;
             player.fallDistance = 0f;
 
-            // Cross-dimension hop via command dispatcher; targets only this player (@s)
-            net.minecraft.server.command.ServerCommandSource src = player.getCommandSource().withSilent();
-            String cmd = "execute in " + targetDimKey + " run tp @s ~ ~ ~";
-            player.getServer().getCommandManager().executeWithPrefix(src, cmd);
+            // Dimension and final position in one move; the player arrives at rest
+            player.teleportTo(new TeleportTarget(target, new Vec3d(pos.x, pos.y, pos.z), Vec3d.ZERO,
+                    pos.yaw, pos.pitch, TeleportTarget.NO_OP));
 
             if (MultiWorldPositions.getConfig().debugMode) {
                 String afterKey = player.getWorld().getRegistryKey().getValue().toString();
                 MultiWorldPositions.LOGGER.debug("[MWP] TeleportService: post-teleport world for {} is {}",
                         player.getName().getString(), afterKey);
             }
-            return true;
+            return Result.moved(targetDimKey, pos);
         } catch (Exception e) {
             MultiWorldPositions.LOGGER.warn("[MWP] Failed to cross-dimension teleport to {}", targetDimKey, e);
-            return false;
+            return Result.failed(e.toString());
         }
     }
 }
@@ -66,13 +66,17 @@ public class InventoryStorage {
     }
 
     public void saveAll(MinecraftServer server) {
-        ModConfig cfg = MultiWorldPositions.getConfig();
-        for (ServerPlayerEntity p : server.getPlayerManager().getPlayerList()) {
-            String dim = p.getWorld().getRegistryKey().getValue().toString();
-            String gid = cfg.getGroupIdForWorld(dim);
-            if (gid != null) {
-                saveForGroup(p, gid);
-            }
+        OnlineRoster roster = MultiWorldPositions.getOnlineRoster();
+        for (String gid : roster.groups()) {
+            saveGroup(server, gid);
+        }
+    }
+
+    /** Flushes the snapshots of every online player currently in the given group. */
+    public void saveGroup(MinecraftServer server, String groupId) {
+        for (UUID id : MultiWorldPositions.getOnlineRoster().inGroup(groupId)) {
+            ServerPlayerEntity p = server.getPlayerManager().getPlayer(id);
+            if (p != null) saveForGroup(p, groupId);
         }
     }
 
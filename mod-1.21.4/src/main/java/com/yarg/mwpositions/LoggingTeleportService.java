@@ -2,6 +2,8 @@ package com.yarg.mwpositions;
 
 import net.minecraft.server.network.ServerPlayerEntity;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Default implementation that only logs the intent to teleport. Useful for environments
  * where a real cross-dimension implementation is not linked.
@@ -14,4 +16,10 @@ public class LoggingTeleportService implements TeleportService {
         // Return false to indicate nothing actually happened, so callers may choose a fallback.
         return false;
     }
+
+    @Override
+    public CompletableFuture<Result> teleportAsync(ServerPlayerEntity player, String targetDimKey, PositionData pos) {
+        teleport(player, targetDimKey);
+        return CompletableFuture.completedFuture(Result.failed("no cross-dimension teleport implementation is linked"));
+    }
 }
@@ -4,10 +4,13 @@ import net.fabricmc.api.DedicatedServerModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.entity.event.v1.ServerEntityWorldChangeEvents;
+import net.fabricmc.fabric.api.entity.event.v1.ServerPlayerEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
 import net.fabricmc.fabric.api.event.player.UseBlockCallback;
 import net.fabricmc.fabric.api.event.player.AttackBlockCallback;
+import net.fabricmc.fabric.api.event.player.PlayerBlockBreakEvents;
+import net.fabricmc.fabric.api.event.player.UseItemCallback;
 import net.minecraft.item.Items;
 import net.minecraft.item.Item;
 import net.minecraft.registry.Registries;
@@ -18,6 +21,10 @@ import net.minecraft.server.world.ServerWorld;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
 public class MultiWorldPositions implements DedicatedServerModInitializer {
     public static final String MOD_ID = "multiworldpositions";
     public static final Logger LOGGER = LoggerFactory.getLogger(MOD_ID);
@@ -27,8 +34,15 @@ public class MultiWorldPositions implements DedicatedServerModInitializer {
     private static ModConfig config;
     private static TeleportService teleportService;
     private static PortalLinkService portalLinkService;
-    // Cooldown map for special portal spawner
-    private static final java.util.Map<java.util.UUID, Long> specialPortalCd = new java.util.HashMap<>();
+    private static EndRingTracker endRingTracker;
+    private static OnlineRoster onlineRoster;
+    private static PortalRegistry portalRegistry;
+    private static ReturnPortalResolver returnPortalResolver;
+    private static PortalLinkCache portalLinkCache;
+    private static ArrivalPreloader arrivalPreloader;
+    private static TransferQueue transferQueue;
+    private static HotDestinations hotDestinations;
+    private static TransferPipeline transferPipeline;
 
     @Override
     public void onInitializeServer() {
@@ -40,26 +54,42 @@ public class MultiWorldPositions implements DedicatedServerModInitializer {
         // Initialize storage
         positionStorage = new PositionStorage();
         inventoryStorage = new InventoryStorage();
+        onlineRoster = new OnlineRoster();
+        portalRegistry = new PortalRegistry();
+        returnPortalResolver = new ReturnPortalResolver();
+        portalLinkCache = new PortalLinkCache();
+        arrivalPreloader = new ArrivalPreloader();
+        transferQueue = new TransferQueue();
+        hotDestinations = new HotDestinations();
+        transferPipeline = new TransferPipeline();
 
         // Initialize teleport service (Fabric/world-change capable)
         teleportService = new FabricTeleportService();
         // Initialize portal link service only if enabled in config
         if (config.enablePortals) {
             portalLinkService = new PortalLinkService();
+            endRingTracker = new EndRingTracker();
         } else {
             portalLinkService = null;
         }
 
         // Register dimension change listener (AFTER_RESPAWN)
         DimensionChangeListener.register();
+        // Respawning into another dimension does not fire AFTER_PLAYER_CHANGE_WORLD
+        ServerPlayerEvents.AFTER_RESPAWN.register((oldPlayer, newPlayer, alive) ->
+                onlineRoster.moveTo(newPlayer.getUuid(), newPlayer.getWorld().getRegistryKey().getValue().toString()));
 
         // NEW: catch world changes used by portals and world managers (after change)
-        // Before-after origin capture: we use a per-tick cache to capture origin coordinates.
+        // Before-after origin capture: the last-known cache is sampled right before teleportTo.
         ServerEntityWorldChangeEvents.AFTER_PLAYER_CHANGE_WORLD.register((player, origin, destination) -> {
             String originKey = origin.getRegistryKey().getValue().toString();
             String destKey = destination.getRegistryKey().getValue().toString();
+            onlineRoster.moveTo(player.getUuid(), destKey);
+            // Timed as a transfer of its own unless it is part of one already running (portal trip, command)
+            TransferPipeline.Run outer = transferPipeline.current(player);
+            TransferPipeline.Run run = outer != null ? outer : transferPipeline.begin(player, TransferPipeline.Type.WORLD_CHANGE);
             // Save the cached origin position if available (and not a hub)
-            getPositionStorage().saveCachedOriginIfMatches(player, originKey);
+            run.stage(TransferPipeline.Stage.PERSIST, () -> getPositionStorage().saveCachedOriginIfMatches(player, originKey));
 
             // Always honor vanilla End exit (End -> Overworld): skip one restore after this change
             ModConfig cfg = getConfig();
@@ -67,7 +97,7 @@ public class MultiWorldPositions implements DedicatedServerModInitializer {
             boolean destIsOw   = "minecraft:overworld".equals(destKey);
             if (originIsEnd && destIsOw) {
                 // If we tracked standing in an End portal, great – but mark regardless to be safe
-                PortalLinkService.markPortalTransfer(player.getUuid());
+                DimensionChangeListener.beginTransfer(player);
                 if (cfg.debugMode) {
                     LOGGER.debug("[MWP] Marked portal transfer (vanilla End exit) for {}: {} -> {}",
                         player.getGameProfile().getName(), originKey, destKey);
@@ -88,7 +118,7 @@ public class MultiWorldPositions implements DedicatedServerModInitializer {
                                 && expectedNether.equals(destKey)
                                 && (getPositionStorage().wasInNetherPortalCell(player.getUuid())
                                     || getPositionStorage().hadEnderPearlCooldown(player.getUuid()))) {
-                            PortalLinkService.markPortalTransfer(player.getUuid());
+                            DimensionChangeListener.beginTransfer(player);
                             if (cfg.debugMode) {
                                 LOGGER.debug("[MWP] Marked portal transfer (vanilla Nether) for {}: {} -> {}",
                                         player.getGameProfile().getName(), originKey, destKey);
@@ -101,7 +131,7 @@ public class MultiWorldPositions implements DedicatedServerModInitializer {
                         if (expectedEnd != null
                                 && expectedEnd.equals(destKey)
                                 && getPositionStorage().wasInEndPortalCell(player.getUuid())) {
-                            PortalLinkService.markPortalTransfer(player.getUuid());
+                            DimensionChangeListener.beginTransfer(player);
                             if (cfg.debugMode) {
                                 LOGGER.debug("[MWP] Marked portal transfer (vanilla End) for {}: {} -> {}",
                                         player.getGameProfile().getName(), originKey, destKey);
@@ -111,6 +141,8 @@ public class MultiWorldPositions implements DedicatedServerModInitializer {
                 }
             }
             
+            // Group portal trips belong to PortalLinkService; this second hop corrects the ones where
+            // vanilla's portal fired first and landed the player in a default world.
             if (cfg.enablePortals) {
                 WorldGroup og = cfg.findGroupByMember(originKey);
                 if (og != null && og.linkPortals != null && og.linkPortals.nether) {
@@ -121,92 +153,92 @@ public class MultiWorldPositions implements DedicatedServerModInitializer {
                         boolean originProfile = (og.inventoryProfile)
                                 || ("__default".equals(originInvGroup) && cfg.inventoryProfileForDefaultWorlds)
                                 || ("__ungrouped".equals(originInvGroup) && cfg.inventoryProfileForUngrouped);
-                        if (originInvGroup != null && originProfile) getInventoryStorage().saveForGroup(player, originInvGroup);
+                        if (originInvGroup != null && originProfile) {
+                            run.stage(TransferPipeline.Stage.SAVE_INVENTORY, () -> getInventoryStorage().saveForGroup(player, originInvGroup));
+                        }
 
                         // Compute scaled coords for target using vanilla scale (OW->Nether = 0.125, Nether->OW = 8.0)
                         double scale = cfg.isGroupOverworld(og, originKey) ? 0.125 : 8.0; // enforce vanilla
                         PositionData pos = new PositionData(player.getX() * scale, player.getY(), player.getZ() * scale, player.getYaw(), player.getPitch());
 
-                        if (getTeleportService().teleport(player, shouldBe)) {
-                            String destInvGroup = cfg.resolveInventoryGroupId(shouldBe);
-                            boolean destProfile = (og.inventoryProfile)
-                                    || ("__default".equals(destInvGroup) && cfg.inventoryProfileForDefaultWorlds)
-                                    || ("__ungrouped".equals(destInvGroup) && cfg.inventoryProfileForUngrouped);
-                            if (destInvGroup != null && destProfile) getInventoryStorage().loadForGroup(player, destInvGroup);
-
-                            // Ensure return portal and place safely (deferred to next tick)
-                            ServerWorld targetWorld = player.getServerWorld();
-                            var desired = net.minecraft.util.math.BlockPos.ofFloored(pos.x, pos.y, pos.z);
-                            final PositionData scheduledPos = pos;
-                            final float yaw = player.getYaw();
-                            player.getServer().execute(() -> {
-                                try {
-                                    int searchRadius = 128; // vanilla
-                                    var axisPref = PortalSpawnHelper.yawToAxis(yaw);
-                                    PortalFrameUtils.FrameBounds preferred = new PortalFrameUtils.FrameBounds(axisPref, 0, 0, 0, 0, 0, 0);
-                                    var portalCell = PortalBuilder.ensureReturnPortal(targetWorld, desired, preferred, searchRadius);
-                                    PositionData finalPos = (portalCell != null)
-                                        ? SafeLocationFinder.findSafeNear(player, shouldBe, scheduledPos, portalCell)
-                                        : SafeLocationFinder.findSafe(player, shouldBe, scheduledPos);
-                                    TeleportPlacement.placePlayerSafely(player, shouldBe, finalPos);
-                                } catch (Throwable t) {
-                                    if (cfg.debugMode) LOGGER.debug("[MWP] Correction ensureReturnPortal failed: {}", t.toString());
-                                    TeleportPlacement.placePlayerSafely(player, shouldBe, scheduledPos);
+                        // Portal the player came through, from the last position sampled in the origin world
+                        PlayerSession ps = PlayerSession.of(player);
+                        net.minecraft.util.math.BlockPos fromCell = (ps.hasLastKnown && ps.lastWorldKey == origin.getRegistryKey())
+                                ? PortalLinkCache.portalCellAt(origin, net.minecraft.util.math.BlockPos.ofFloored(ps.lastX, ps.lastY, ps.lastZ))
+                                : null;
+
+                        // Placed by the return-portal resolver below, not by the restore logic
+                        DimensionChangeListener.beginTransfer(player);
+                        // The hop may complete on a later tick; the run stays open until the player is placed
+                        run.hold();
+                        run.async(TransferPipeline.Stage.TELEPORT, teleportAsync(player, shouldBe, null)).thenAccept(result -> {
+                            try {
+                                if (player.isDisconnected()) return;
+                                if (!result.success) {
+                                    swapInventoriesAndRestore(player, origin, destination, run);
+                                    return;
                                 }
-                            });
-                            return; // Skip rest; correction scheduled
-                        }
+                                String destInvGroup = cfg.resolveInventoryGroupId(shouldBe);
+                                boolean destProfile = (og.inventoryProfile)
+                                        || ("__default".equals(destInvGroup) && cfg.inventoryProfileForDefaultWorlds)
+                                        || ("__ungrouped".equals(destInvGroup) && cfg.inventoryProfileForUngrouped);
+                                if (destInvGroup != null && destProfile) {
+                                    run.stage(TransferPipeline.Stage.LOAD_INVENTORY, () -> getInventoryStorage().loadForGroup(player, destInvGroup));
+                                }
+
+                                // Known portal pair: place at the linked portal without searching
+                                var linked = run.stage(TransferPipeline.Stage.FIND_PORTAL, () -> portalLinkCache.verified(og.id, originKey, fromCell, player.getServerWorld()));
+                                if (linked != null) {
+                                    PositionData spot = run.stage(TransferPipeline.Stage.FIND_SAFE_SPOT, () -> SafeLocationFinder.findSafeNear(player, shouldBe, pos, linked));
+                                    run.stage(TransferPipeline.Stage.PLACE, () -> TeleportPlacement.placePlayerSafely(player, shouldBe, spot));
+                                    return;
+                                }
+                                // Ensure return portal and place safely once the destination chunks are loaded
+                                var axisPref = PortalSpawnHelper.yawToAxis(player.getYaw());
+                                PortalFrameUtils.FrameBounds preferred = new PortalFrameUtils.FrameBounds(axisPref, 0, 0, 0, 0, 0, 0);
+                                returnPortalResolver.placeAtReturnPortal(player, shouldBe, pos, preferred, 128, run,
+                                        cell -> portalLinkCache.link(og.id, origin, fromCell, player.getServerWorld(), cell)); // vanilla radius
+                            } finally {
+                                run.release();
+                            }
+                        });
+                        if (outer == null) run.finish();
+                        return;
                     }
                 }
             }
 
-            // Inventory swap (groups and fallbacks)
-            String originGroup = config.resolveInventoryGroupId(originKey);
-            String destGroup = config.resolveInventoryGroupId(destKey);
+            swapInventoriesAndRestore(player, origin, destination, run);
+            if (outer == null) run.finish();
+        });
 
-            if (originGroup != null && !originGroup.equals(destGroup)) {
-                boolean originProfile = false;
-                WorldGroup og2 = config.findGroupByMember(originKey);
-                if (og2 != null) originProfile = og2.inventoryProfile;
-                else if ("__default".equals(originGroup)) originProfile = config.inventoryProfileForDefaultWorlds;
-                else if ("__ungrouped".equals(originGroup)) originProfile = config.inventoryProfileForUngrouped;
 
-                if (originProfile) {
-                    if (config.debugMode) {
-                        LOGGER.debug("[MWP] InvSwap: save {} for {}", originGroup, player.getGameProfile().getName());
-                    }
-                    inventoryStorage.saveForGroup(player, originGroup);
-                }
+        // Last-known positions are sampled on movement, portal contact and teleportTo (see mixins);
+        // pearl throws are sampled here since the cooldown only starts after the use callback.
+        UseItemCallback.EVENT.register((player, world, hand) -> {
+            if (!world.isClient() && player instanceof ServerPlayerEntity sp && player.getStackInHand(hand).isOf(Items.ENDER_PEARL)) {
+                positionStorage.onEnderPearlUsed(sp);
             }
-            if (destGroup != null && !destGroup.equals(originGroup)) {
-                boolean destProfile = false;
-                WorldGroup dg = config.findGroupByMember(destKey);
-                if (dg != null) destProfile = dg.inventoryProfile;
-                else if ("__default".equals(destGroup)) destProfile = config.inventoryProfileForDefaultWorlds;
-                else if ("__ungrouped".equals(destGroup)) destProfile = config.inventoryProfileForUngrouped;
-
-                if (destProfile) {
-                    if (config.debugMode) {
-                        LOGGER.debug("[MWP] InvSwap: load {} for {}", destGroup, player.getGameProfile().getName());
-                    }
-                    inventoryStorage.loadForGroup(player, destGroup);
-                }
-            }
-
-            // Then run restore/redirect logic for the destination
-            DimensionChangeListener.handleAfterWorldChange(player, origin, destination);
+            return ActionResult.PASS;
         });
 
-
-        // Register per-tick cache updater for last-known positions
         ServerTickEvents.END_SERVER_TICK.register(server -> {
-            for (ServerPlayerEntity p : server.getPlayerManager().getPlayerList()) {
-                positionStorage.updateLastKnown(p);
-            }
             // Portal linking per-tick (only when enabled)
             if (config.enablePortals && portalLinkService != null) {
                 portalLinkService.tick(server);
+                // Frames that received an eye this tick now have it in
+                endRingTracker.tick();
             }
+            // Start return-portal searches whose site loaded, and hold players still waiting on one
+            returnPortalResolver.tick();
+            // Admit queued moves within what portals left of this tick's budget
+            transferQueue.tick();
+            // Release moves whose destination chunks finished loading
+            arrivalPreloader.tick();
+            // Keep spawns and other busy destinations loaded with their safe spot cached
+            hotDestinations.tick(server);
+            // Write portal registry changes in batches
+            portalRegistry.tick();
         });
 
         // Register commands
@@ -261,14 +293,29 @@ public class MultiWorldPositions implements DedicatedServerModInitializer {
                     }
                 }
 
-                // End: allow vanilla eye placement; do not intercept or fill here
+                // End: allow vanilla eye placement; check for a completed ring once the eye is in
                 if (g.linkPortals != null && g.linkPortals.end && stack.isOf(Items.ENDER_EYE)) {
+                    if (g.createPortalIfMissing && state.isOf(net.minecraft.block.Blocks.END_PORTAL_FRAME)
+                            && !state.get(net.minecraft.block.EndPortalFrameBlock.EYE)) {
+                        endRingTracker.onEyeUsed((ServerWorld) world, pos);
+                    }
                     return ActionResult.PASS;
                 }
 
                 return ActionResult.PASS;
             });
 
+            // Breaking a frame forgets any completed End ring or registered Nether portal it belonged to
+            PlayerBlockBreakEvents.AFTER.register((world, player, pos, state, blockEntity) -> {
+                if (world.isClient()) return;
+                if (state.isOf(net.minecraft.block.Blocks.END_PORTAL_FRAME)) {
+                    endRingTracker.onFrameBroken((ServerWorld) world, pos);
+                } else if (state.isOf(net.minecraft.block.Blocks.OBSIDIAN) || state.isOf(net.minecraft.block.Blocks.NETHER_PORTAL)) {
+                    portalRegistry.removeAt((ServerWorld) world, pos);
+                    portalLinkCache.invalidateNear((ServerWorld) world, pos);
+                }
+            });
+
             // Special portal spawner: left-click with configured item (default blaze rod)
             AttackBlockCallback.EVENT.register((player, world, hand, pos, direction) -> {
                 if (world.isClient()) return ActionResult.PASS;
@@ -287,8 +334,9 @@ public class MultiWorldPositions implements DedicatedServerModInitializer {
                 }
 
                 long now = player.getServer().getTicks();
-                Long last = specialPortalCd.get(player.getUuid());
-                if (last != null && (now - last) < cfg.specialPortalCooldownTicks) {
+                PlayerSession session = PlayerSession.of((ServerPlayerEntity) player);
+                long last = session.specialPortalTick;
+                if (last != PlayerSession.NEVER && (now - last) < cfg.specialPortalCooldownTicks) {
                     return ActionResult.FAIL;
                 }
 
@@ -304,7 +352,7 @@ public class MultiWorldPositions implements DedicatedServerModInitializer {
                         sr = PortalSpawnHelper.buildAtCorner((ServerWorld) world, corner, other);
                     }
                     if (sr.success) {
-                        specialPortalCd.put(player.getUuid(), now);
+                        session.specialPortalTick = now;
                         success = true;
                         player.sendMessage(net.minecraft.text.Text.of("A Nether portal materializes."), false);
 
@@ -315,29 +363,22 @@ public class MultiWorldPositions implements DedicatedServerModInitializer {
                                 double scale = cfg.isGroupOverworld(g, dim) ? 0.125 : 8.0;
                                 PositionData scaled = new PositionData(player.getX() * scale, player.getY(), player.getZ() * scale, player.getYaw(), player.getPitch());
 
-                                // Snapshot frameBounds for lambda capture
-                                final PortalFrameUtils.FrameBounds fbFinal = sr.frameBounds;
-
-                                // Defer heavy ensureReturnPortal work to next tick and cap search radius
-                                player.getServer().execute(() -> {
-                                    try {
-                                        var id = net.minecraft.util.Identifier.of(targetDim);
-                                        var key = net.minecraft.registry.RegistryKey.of(net.minecraft.registry.RegistryKeys.WORLD, id);
-                                        net.minecraft.server.world.ServerWorld targetWorld = player.getServer().getWorld(key);
-                                        if (targetWorld == null) return;
-
-                                        var desired = net.minecraft.util.math.BlockPos.ofFloored(scaled.x, scaled.y, scaled.z);
-                                        // Prefer the built frame’s axis if present; else hint by yaw
-                                        PortalFrameUtils.FrameBounds pref = fbFinal != null ? fbFinal
-                                                : new PortalFrameUtils.FrameBounds(PortalSpawnHelper.yawToAxis(player.getYaw()), 0, 0, 0, 0, 0, 0);
-
-                                        // Use a safer, capped search radius for this "extra" prebuild step
-                                        int search = Math.min(96, Math.max(32, MultiWorldPositions.getConfig().returnPortalSearchRadius));
-                                        PortalBuilder.ensureReturnPortal(targetWorld, desired, pref, search);
-                                    } catch (Throwable t) {
-                                        if (cfg.debugMode) LOGGER.debug("[MWP] Deferred ensureReturnPortal failed: {}", t.toString());
-                                    }
-                                });
+                                // Resolve the return portal in the background (chunks load asynchronously) with a capped radius
+                                var id = net.minecraft.util.Identifier.of(targetDim);
+                                var key = net.minecraft.registry.RegistryKey.of(net.minecraft.registry.RegistryKeys.WORLD, id);
+                                net.minecraft.server.world.ServerWorld targetWorld = player.getServer().getWorld(key);
+                                if (targetWorld != null) {
+                                    var desired = net.minecraft.util.math.BlockPos.ofFloored(scaled.x, scaled.y, scaled.z);
+                                    // Prefer the built frame’s axis if present; else hint by yaw
+                                    PortalFrameUtils.FrameBounds pref = sr.frameBounds != null ? sr.frameBounds
+                                            : new PortalFrameUtils.FrameBounds(PortalSpawnHelper.yawToAxis(player.getYaw()), 0, 0, 0, 0, 0, 0);
+
+                                    // Use a safer, capped search radius for this "extra" prebuild step
+                                    int search = Math.min(96, Math.max(32, MultiWorldPositions.getConfig().returnPortalSearchRadius));
+                                    returnPortalResolver.resolve(targetWorld, desired, pref, search).whenComplete((cell, t) -> {
+                                        if (t != null && cfg.debugMode) LOGGER.debug("[MWP] Deferred ensureReturnPortal failed: {}", t.toString());
+                                    });
+                                }
                             }
                         }
                     }
@@ -374,11 +415,19 @@ public class MultiWorldPositions implements DedicatedServerModInitializer {
 
             // Write to disk
             positionStorage.savePlayerData(player.getUuid());
+            PlayerSession.close(player.getUuid());
+            returnPortalResolver.unpark(player.getUuid());
+            arrivalPreloader.cancelWarm(player.getUuid());
+            transferQueue.cancel(player.getUuid());
+            transferPipeline.cancel(player.getUuid());
+            onlineRoster.leave(player.getUuid());
         });
 
         // Load player data when they join
         ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> {
             ServerPlayerEntity player = handler.getPlayer();
+            PlayerSession.open(player);
+            onlineRoster.moveTo(player.getUuid(), player.getWorld().getRegistryKey().getValue().toString());
             positionStorage.loadPlayerData(player.getUuid());
             // Load inventory profile for current group if enabled
             String dim = player.getWorld().getRegistryKey().getValue().toString();
@@ -396,11 +445,54 @@ public class MultiWorldPositions implements DedicatedServerModInitializer {
             LOGGER.info("Saving all player positions and inventories before shutdown...");
             positionStorage.saveAll(server);
             inventoryStorage.saveAll(server);
+            portalRegistry.flush();
         });
 
         LOGGER.info("MultiWorld Positions Tracker initialized successfully!");
     }
 
+    // Inventory swap between the origin and destination groups, then restore/redirect for the destination
+    private static void swapInventoriesAndRestore(ServerPlayerEntity player, ServerWorld origin, ServerWorld destination, TransferPipeline.Run run) {
+        String originKey = origin.getRegistryKey().getValue().toString();
+        String destKey = destination.getRegistryKey().getValue().toString();
+
+        // Inventory swap (groups and fallbacks)
+        String originGroup = config.resolveInventoryGroupId(originKey);
+        String destGroup = config.resolveInventoryGroupId(destKey);
+
+        if (originGroup != null && !originGroup.equals(destGroup)) {
+            boolean originProfile = false;
+            WorldGroup og2 = config.findGroupByMember(originKey);
+            if (og2 != null) originProfile = og2.inventoryProfile;
+            else if ("__default".equals(originGroup)) originProfile = config.inventoryProfileForDefaultWorlds;
+            else if ("__ungrouped".equals(originGroup)) originProfile = config.inventoryProfileForUngrouped;
+
+            if (originProfile) {
+                if (config.debugMode) {
+                    LOGGER.debug("[MWP] InvSwap: save {} for {}", originGroup, player.getGameProfile().getName());
+                }
+                run.stage(TransferPipeline.Stage.SAVE_INVENTORY, () -> inventoryStorage.saveForGroup(player, originGroup));
+            }
+        }
+        if (destGroup != null && !destGroup.equals(originGroup)) {
+            boolean destProfile = false;
+            WorldGroup dg = config.findGroupByMember(destKey);
+            if (dg != null) destProfile = dg.inventoryProfile;
+            else if ("__default".equals(destGroup)) destProfile = config.inventoryProfileForDefaultWorlds;
+            else if ("__ungrouped".equals(destGroup)) destProfile = config.inventoryProfileForUngrouped;
+
+            if (destProfile) {
+                if (config.debugMode) {
+                    LOGGER.debug("[MWP] InvSwap: load {} for {}", destGroup, player.getGameProfile().getName());
+                }
+                run.stage(TransferPipeline.Stage.LOAD_INVENTORY, () -> inventoryStorage.loadForGroup(player, destGroup));
+            }
+        }
+
+        // Then run restore/redirect logic for the destination
+        DimensionChangeListener.handleAfterWorldChange(player, origin, destination);
+    }
+
     public static PositionStorage getPositionStorage() {
         return positionStorage;
     }
@@ -413,12 +505,85 @@ public class MultiWorldPositions implements DedicatedServerModInitializer {
         return teleportService;
     }
 
+    /**
+     * Moves the player through the TeleportService without blocking the tick. The returned future
+     * completes on the server thread (in the same call when the service finished inside it) and never
+     * exceptionally; failures arrive as a failed Result.
+     */
+    public static CompletableFuture<TeleportService.Result> teleportAsync(ServerPlayerEntity player, String targetDimKey, PositionData pos) {
+        PlayerSession session = PlayerSession.of(player);
+        session.teleportsPending++;
+        CompletableFuture<TeleportService.Result> move;
+        try {
+            move = teleportService.teleportAsync(player, targetDimKey, pos);
+        } catch (Exception e) {
+            move = CompletableFuture.completedFuture(TeleportService.Result.failed(e.toString()));
+        }
+        BiFunction<TeleportService.Result, Throwable, TeleportService.Result> settle = (result, t) -> {
+            TeleportService.Result r = (t != null || result == null)
+                    ? TeleportService.Result.failed(t != null ? t.toString() : "no result") : result;
+            // Still counted as pending here, so the transfer state sees this move as in flight
+            DimensionChangeListener.completeTransfer(player, r.success);
+            session.teleportsPending--;
+            if (!r.success && config.debugMode) {
+                LOGGER.debug("[MWP] Teleport of {} to {} failed: {}", player.getName().getString(), targetDimKey, r.failure);
+            }
+            return r;
+        };
+        var server = player.getServer();
+        return (move.isDone() && server.isOnThread()) ? move.handle(settle) : move.handleAsync(settle, server);
+    }
+
+    /** True while a TeleportService move of the player has not completed; portals and queued moves wait. */
+    public static boolean isTeleportPending(UUID playerId) {
+        PlayerSession s = PlayerSession.get(playerId);
+        return s != null && s.teleportsPending > 0;
+    }
+
     public static InventoryStorage getInventoryStorage() {
         return inventoryStorage;
     }
 
+    public static OnlineRoster getOnlineRoster() {
+        return onlineRoster;
+    }
+
+    public static PortalRegistry getPortalRegistry() {
+        return portalRegistry;
+    }
+
+    public static ReturnPortalResolver getReturnPortalResolver() {
+        return returnPortalResolver;
+    }
+
+    public static PortalLinkCache getPortalLinkCache() {
+        return portalLinkCache;
+    }
+
+    public static ArrivalPreloader getArrivalPreloader() {
+        return arrivalPreloader;
+    }
+
+    public static TransferQueue getTransferQueue() {
+        return transferQueue;
+    }
+
+    public static HotDestinations getHotDestinations() {
+        return hotDestinations;
+    }
+
+    public static TransferPipeline getTransferPipeline() {
+        return transferPipeline;
+    }
+
+    public static PortalLinkService getPortalLinkService() {
+        return portalLinkService;
+    }
+
     public static void reloadConfig() {
         config = ModConfig.load();
+        if (onlineRoster != null) onlineRoster.regroup();
+        if (hotDestinations != null) hotDestinations.refreshSoon();
         LOGGER.info("Reloaded multiworldpositions config from disk");
     }
 }
\ No newline at end of file
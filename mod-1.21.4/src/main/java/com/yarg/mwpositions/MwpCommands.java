@@ -105,6 +105,22 @@ public class MwpCommands {
                                     return 1;
                                 })
                         )
+                        // Per transfer type: average stage timings since start (or the last reset)
+                        .then(literal("timings")
+                                .executes(ctx -> {
+                                    for (String line : MultiWorldPositions.getTransferPipeline().report()) {
+                                        ctx.getSource().sendFeedback(() -> Text.of(line), false);
+                                    }
+                                    return 1;
+                                })
+                                .then(literal("reset")
+                                        .executes(ctx -> {
+                                            MultiWorldPositions.getTransferPipeline().reset();
+                                            ctx.getSource().sendFeedback(() -> Text.of("Cleared transfer timings"), true);
+                                            return 1;
+                                        })
+                                )
+                        )
         );
 
         // Admin: explicit player + dimension teleport, avoiding @p selector ambiguity
@@ -122,8 +138,12 @@ public class MwpCommands {
                                                 ctx.getSource().sendError(Text.of("Player not found"));
                                                 return 0;
                                             }
-                                            boolean ok = MultiWorldPositions.getTeleportService().teleport(player, dim);
-                                            return ok ? 1 : 0;
+                                            // Admin moves queue behind players; moves once the destination chunks are loaded
+                                            boolean queued = MultiWorldPositions.getTransferQueue().submit(player, TransferQueue.Priority.BULK, dim,
+                                                    () -> MultiWorldPositions.teleportAsync(player, dim, null).thenAccept(result -> {
+                                                        if (!result.success) ctx.getSource().sendError(Text.of("Teleport failed: " + result.failure));
+                                                    }));
+                                            return queued ? 1 : 0;
                                         })
                                 )
                         )
@@ -161,12 +181,19 @@ public class MwpCommands {
                                 destDim = "minecraft:overworld";
                             }
 
-                            boolean ok = MultiWorldPositions.getTeleportService().teleport(player, destDim);
-                            if (ok) {
-                                player.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
-                                // Placement handled by DimensionChangeListener
-                            }
-                            return ok ? 1 : 0;
+                            final String survivalDim = destDim;
+                            // Queued within the per-tick transfer budget; moves once the chunks around the arrival spot are loaded
+                            boolean queued = MultiWorldPositions.getTransferQueue().submit(player, TransferQueue.Priority.COMMAND, survivalDim, () -> {
+                                MultiWorldPositions.teleportAsync(player, survivalDim, null).thenAccept(result -> {
+                                    if (!result.success) {
+                                        player.sendMessage(Text.of("Teleport failed: " + result.failure), false);
+                                        return;
+                                    }
+                                    player.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
+                                    // Placement handled by DimensionChangeListener
+                                });
+                            });
+                            return queued ? 1 : 0;
                         })
         );
 
@@ -206,54 +233,67 @@ public class MwpCommands {
                                     dimCandidate = destFinal;
                                 }
 
-                                boolean ok = MultiWorldPositions.getTeleportService().teleport(player, dimCandidate);
-                                if (ok) {
-                                    gmFinal.accept(player);
+                                final String dest = dimCandidate;
 
-                                    // For hub specifically, place at configured spawn from config (or world spawn fallback)
-                                    if ("hub".equalsIgnoreCase(cmdFinal)) {
-                                        // Explicitly set Adventure mode for hub command
-                                        player.changeGameMode(net.minecraft.world.GameMode.ADVENTURE);
-                                        PositionData target;
-                                        if (gFinal.spawnX != null && gFinal.spawnY != null && gFinal.spawnZ != null) {
-                                            double tx = gFinal.spawnX;
-                                            double tz = gFinal.spawnZ;
-                                            if (Math.floor(tx) == tx) tx += 0.5;
-                                            if (Math.floor(tz) == tz) tz += 0.5;
-                                            target = new PositionData(
-                                                    tx,
-                                                    gFinal.spawnY,
-                                                    tz,
-                                                    gFinal.spawnYaw != null ? gFinal.spawnYaw : player.getYaw(),
-                                                    gFinal.spawnPitch != null ? gFinal.spawnPitch : player.getPitch()
-                                            );
-                                        } else {
-                                            // Fall back to destination world's spawn
-                                            net.minecraft.util.Identifier id = net.minecraft.util.Identifier.of(dimCandidate);
-                                            net.minecraft.registry.RegistryKey<net.minecraft.world.World> key = net.minecraft.registry.RegistryKey.of(net.minecraft.registry.RegistryKeys.WORLD, id);
-                                            net.minecraft.server.world.ServerWorld tw = player.getServer().getWorld(key);
-                                            if (tw != null) {
-                                                net.minecraft.util.math.BlockPos sp = tw.getSpawnPos();
-                                                target = new PositionData(sp.getX() + 0.5, sp.getY(), sp.getZ() + 0.5, player.getYaw(), player.getPitch());
-                                            } else {
-                                                // As a last resort, keep current post-teleport position
-                                                target = new PositionData(player.getX(), player.getY(), player.getZ(), player.getYaw(), player.getPitch());
+                                // For hub specifically, arrive at the configured spawn (or world spawn fallback) in one move
+                                if ("hub".equalsIgnoreCase(cmdFinal)) {
+                                    net.minecraft.server.world.ServerWorld tw = player.getServer().getWorld(net.minecraft.registry.RegistryKey.of(
+                                            net.minecraft.registry.RegistryKeys.WORLD, net.minecraft.util.Identifier.of(dest)));
+                                    PositionData target = hubSpawn(player, gFinal, tw);
+                                    boolean queued = MultiWorldPositions.getTransferQueue().submit(player, TransferQueue.Priority.COMMAND, dest, target, () -> {
+                                        PositionData landing = tw != null
+                                                ? MultiWorldPositions.getTransferPipeline().stage(player, TransferPipeline.Stage.FIND_SAFE_SPOT,
+                                                        () -> TeleportPlacement.resolveExactlyOrNearby(tw, target))
+                                                : target;
+                                        MultiWorldPositions.teleportAsync(player, dest, landing).thenAccept(result -> {
+                                            if (!result.success) {
+                                                player.sendMessage(Text.of("Teleport failed: " + result.failure), false);
+                                                return;
                                             }
-                                        }
-                                        // Persist the configured hub spawn as this player's saved hub position
-                                        MultiWorldPositions.getPositionStorage().setPosition(player.getUuid(), dimCandidate, target);
-                                        final PositionData hubTarget = target;
-                                        final String hubDim = dimCandidate;
-                                        // Defer placement to ensure we are fully in the destination world
-                                        player.getServer().execute(() -> {
-                                            TeleportPlacement.placeExactlyOrNearby(player, hubDim, hubTarget);
+                                            gmFinal.accept(player);
+                                            // Explicitly set Adventure mode for hub command
+                                            player.changeGameMode(net.minecraft.world.GameMode.ADVENTURE);
+                                            // Persist the configured hub spawn as this player's saved hub position
+                                            MultiWorldPositions.getPositionStorage().setPosition(player.getUuid(), dest, target);
                                         });
-                                    }
-                                    // For non-hub groups, placement is handled by DimensionChangeListener on world change
+                                    });
+                                    return queued ? 1 : 0;
                                 }
-                                return ok ? 1 : 0;
+
+                                // For non-hub groups, placement is handled by DimensionChangeListener on world change
+                                boolean queued = MultiWorldPositions.getTransferQueue().submit(player, TransferQueue.Priority.COMMAND, dest, () -> {
+                                    MultiWorldPositions.teleportAsync(player, dest, null).thenAccept(result -> {
+                                        if (result.success) gmFinal.accept(player);
+                                        else player.sendMessage(Text.of("Teleport failed: " + result.failure), false);
+                                    });
+                                });
+                                return queued ? 1 : 0;
                             })
             );
         }
     }
+
+    // Configured hub spawn of the group; otherwise the destination world's spawn
+    private static PositionData hubSpawn(net.minecraft.server.network.ServerPlayerEntity player, WorldGroup g,
+                                         net.minecraft.server.world.ServerWorld tw) {
+        if (g.spawnX != null && g.spawnY != null && g.spawnZ != null) {
+            double tx = g.spawnX;
+            double tz = g.spawnZ;
+            if (Math.floor(tx) == tx) tx += 0.5;
+            if (Math.floor(tz) == tz) tz += 0.5;
+            return new PositionData(
+                    tx,
+                    g.spawnY,
+                    tz,
+                    g.spawnYaw != null ? g.spawnYaw : player.getYaw(),
+                    g.spawnPitch != null ? g.spawnPitch : player.getPitch()
+            );
+        }
+        if (tw != null) {
+            net.minecraft.util.math.BlockPos sp = tw.getSpawnPos();
+            return new PositionData(sp.getX() + 0.5, sp.getY(), sp.getZ() + 0.5, player.getYaw(), player.getPitch());
+        }
+        // As a last resort, keep the current position
+        return new PositionData(player.getX(), player.getY(), player.getZ(), player.getYaw(), player.getPitch());
+    }
 }
@@ -0,0 +1,149 @@
+package com.yarg.mwpositions;
+
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.world.World;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * All transient per-player state for one online session, held as primitive fields and reachable in a
+ * single lookup. Opened on JOIN and released on DISCONNECT; nothing here is persisted.
+ */
+public final class PlayerSession {
+    /** Sentinel for "never happened" tick/time fields. */
+    public static final long NEVER = Long.MIN_VALUE;
+
+    private static final Map<UUID, PlayerSession> SESSIONS = new ConcurrentHashMap<>();
+
+    /** Where the player is in a move started by this mod. */
+    enum Transfer { IDLE, IN_FLIGHT, SETTLING }
+
+    // Last-known sample used for origin capture (see PositionStorage)
+    boolean hasLastKnown;
+    RegistryKey<World> lastWorldKey;
+    double lastX, lastY, lastZ;
+    float lastYaw, lastPitch;
+    boolean inNetherPortalCell;  // nether portal contact at sample time
+    boolean inEndPortalCell;     // end portal contact at sample time
+    boolean coolingEnderPearl;   // ender pearl cooldown at sample time
+
+    // Portal contact from collision callbacks (server ticks) and warm-up counter
+    long netherContactTick = NEVER;
+    long endContactTick = NEVER;
+    int portalWarmupTicks;
+    // Block and world the destination warm-up was computed from (see PortalLinkService.warmUp)
+    long warmBlock = NEVER;
+    RegistryKey<World> warmWorldKey;
+
+    // Cooldowns (server ticks)
+    long netherCooldownTick = NEVER;
+    long endCooldownTick = NEVER;
+    long specialPortalTick = NEVER;
+
+    // Restore/redirect bookkeeping (see DimensionChangeListener): a move started by this mod is IN_FLIGHT
+    // until it lands, then SETTLING until settleUntilTick
+    Transfer transfer = Transfer.IDLE;
+    long transferStartTick = NEVER;
+    long settleUntilTick = NEVER;
+
+    // TeleportService moves started and not completed yet (see MultiWorldPositions.teleportAsync)
+    int teleportsPending;
+
+    PlayerSession() {}
+
+    public static void open(ServerPlayerEntity player) {
+        SESSIONS.computeIfAbsent(player.getUuid(), k -> new PlayerSession());
+    }
+
+    public static void close(UUID playerId) {
+        SESSIONS.remove(playerId);
+    }
+
+    /** Session of an online player, or null if none is open. */
+    public static PlayerSession get(UUID playerId) {
+        return SESSIONS.get(playerId);
+    }
+
+    /**
+     * Session for writing. Opens one if an event beats JOIN; a player that already disconnected gets a
+     * detached instance so late callbacks cannot resurrect (and leak) its entry.
+     */
+    public static PlayerSession of(ServerPlayerEntity player) {
+        PlayerSession s = SESSIONS.get(player.getUuid());
+        if (s != null) return s;
+        if (player.isDisconnected()) return new PlayerSession();
+        return SESSIONS.computeIfAbsent(player.getUuid(), k -> new PlayerSession());
+    }
+
+    /** Overwrites the last-known sample in place; portal contact is taken from this session at tick now. */
+    void recordSample(RegistryKey<World> worldKey, double x, double y, double z, float yaw, float pitch,
+                      long now, boolean enderPearlCooldown) {
+        hasLastKnown = true;
+        lastWorldKey = worldKey;
+        lastX = x;
+        lastY = y;
+        lastZ = z;
+        lastYaw = yaw;
+        lastPitch = pitch;
+        inNetherPortalCell = touching(PortalKind.NETHER, now);
+        inEndPortalCell = touching(PortalKind.END, now);
+        coolingEnderPearl = enderPearlCooldown;
+    }
+
+    /**
+     * Records portal contact for the given tick. Collision callbacks fire once per overlapped portal
+     * block, so this returns false when contact was already recorded this tick.
+     */
+    public boolean markPortalContact(PortalKind kind, long now) {
+        if (kind == PortalKind.NETHER) {
+            long prev = netherContactTick;
+            if (prev == now) return false;
+            netherContactTick = now;
+            // Warmup tracking similar to vanilla behavior: consecutive ticks of contact
+            portalWarmupTicks = (prev != NEVER && now - prev <= 1) ? portalWarmupTicks + 1 : 1;
+        } else {
+            if (endContactTick == now) return false;
+            endContactTick = now;
+        }
+        return true;
+    }
+
+    /** Contact in the current or previous tick counts, so callback/tick ordering cannot drop a tick. */
+    boolean touching(PortalKind kind, long now) {
+        long t = (kind == PortalKind.NETHER) ? netherContactTick : endContactTick;
+        return t != NEVER && now - t <= 1;
+    }
+
+    /** A move started by this mod: the world change it causes lands where the mod already decided. */
+    void beginTransfer(long now) {
+        transfer = Transfer.IN_FLIGHT;
+        transferStartTick = now;
+    }
+
+    /** The move landed; redirects wait until settleTicks more server ticks have passed. */
+    void settleTransfer(long now, int settleTicks) {
+        transfer = Transfer.SETTLING;
+        settleUntilTick = now + settleTicks;
+    }
+
+    /** The move did not happen (e.g. the teleport failed). */
+    void cancelTransfer() {
+        if (transfer == Transfer.IN_FLIGHT) transfer = Transfer.IDLE;
+    }
+
+    /**
+     * State at the given tick. SETTLING ends on its tick; a synchronous move lands within the tick it
+     * started, so one still IN_FLIGHT after that with no TeleportService move pending never will.
+     */
+    Transfer transferState(long now) {
+        if (transfer == Transfer.SETTLING && now >= settleUntilTick) {
+            transfer = Transfer.IDLE;
+        } else if (transfer == Transfer.IN_FLIGHT && teleportsPending == 0 && now > transferStartTick) {
+            transfer = Transfer.IDLE;
+        }
+        return transfer;
+    }
+}
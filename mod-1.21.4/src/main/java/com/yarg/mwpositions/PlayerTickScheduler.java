@@ -0,0 +1,70 @@
+package com.yarg.mwpositions;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Spreads per-player work across server ticks. Only the added candidates (e.g. players touching a
+ * portal) are visited, round-robin, until the configured millisecond budget is spent, so the per-tick
+ * cost scales with the players that actually need work rather than with the online count. Candidates
+ * wait in a rotating line, so players joining or leaving it never make anyone else skip a turn or go
+ * twice. Server thread only.
+ */
+public final class PlayerTickScheduler {
+    public interface PlayerTask {
+        void run(ServerPlayerEntity player);
+    }
+
+    private static final class Entry {
+        final UUID id;
+        int visitedTick;
+
+        Entry(UUID id) {
+            this.id = id;
+        }
+    }
+
+    // Next in line at the head; visited players go to the tail
+    private final ArrayDeque<Entry> line = new ArrayDeque<>();
+    private final Map<UUID, Entry> entries = new HashMap<>();
+    private int ticks;
+
+    /** Adds the player to the end of the line; no-op if they are already in it. */
+    public void add(UUID playerId) {
+        if (entries.containsKey(playerId)) return;
+        Entry e = new Entry(playerId);
+        e.visitedTick = ticks;
+        entries.put(playerId, e);
+        line.addLast(e);
+    }
+
+    public void remove(UUID playerId) {
+        Entry e = entries.remove(playerId);
+        if (e != null) line.remove(e);
+    }
+
+    public void tick(MinecraftServer server, PlayerTask task) {
+        ticks++;
+        if (line.isEmpty()) return;
+        ModConfig cfg = MultiWorldPositions.getConfig();
+        long start = System.nanoTime();
+        long budgetNanos = (long) (Math.max(0.0, cfg.playerWorkBudgetMillis) * 1_000_000L);
+        int minPerTick = Math.max(1, cfg.playerWorkMinPerTick);
+        int visited = 0;
+        // Stops once the head was already visited this tick; the task may add or remove candidates
+        while (!line.isEmpty() && line.peekFirst().visitedTick != ticks) {
+            Entry e = line.pollFirst();
+            line.addLast(e);
+            e.visitedTick = ticks;
+            ServerPlayerEntity p = server.getPlayerManager().getPlayer(e.id);
+            if (p != null) task.run(p);
+            else remove(e.id); // left the server
+            if (++visited >= minPerTick && System.nanoTime() - start >= budgetNanos) break;
+        }
+    }
+}
@@ -5,7 +5,13 @@ import net.minecraft.block.Blocks;
 import net.minecraft.block.NetherPortalBlock;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.Direction.Axis;
+import net.minecraft.world.poi.PointOfInterest;
+import net.minecraft.world.poi.PointOfInterestStorage;
+import net.minecraft.world.poi.PointOfInterestTypes;
+
+import java.util.Comparator;
 
 /**
  * Utility to ensure a return portal exists near an intended arrival location.
@@ -18,7 +24,7 @@ public final class PortalBuilder {
     public static BlockPos ensureReturnPortal(ServerWorld world, BlockPos near, PortalFrameUtils.FrameBounds preferred, int searchRadius) {
         ModConfig cfg = MultiWorldPositions.getConfig();
         // 1) Try to find an existing portal nearby
-        BlockPos existing = findNearestPortalCell(world, near, searchRadius);
+        BlockPos existing = findExistingPortal(world, near, searchRadius);
         if (existing != null) {
             if (cfg.debugMode) {
                 MultiWorldPositions.LOGGER.debug("[MWP] PortalBuilder: snapped to existing portal at {}", existing);
@@ -33,10 +39,7 @@ public final class PortalBuilder {
         Axis axis = (preferred != null) ? preferred.axis : Axis.X;
 
         // Find a reasonable base Y: ground beneath 'near'
-        int y = near.getY();
-        while (y > 2 && !world.getBlockState(new BlockPos(near.getX(), y - 1, near.getZ())).isSolidBlock(world, new BlockPos(near.getX(), y - 1, near.getZ()))) {
-            y--;
-        }
+        int y = SectionScanner.dropToGround(world, near.getX(), near.getY(), near.getZ(), 2);
         int baseY = Math.max(2, y);
 
         if (axis == Axis.X) {
@@ -46,6 +49,8 @@ public final class PortalBuilder {
             int rightX = leftX + 3;
             buildFrameX(world, leftX, rightX, baseY, z);
             fillInteriorX(world, leftX + 1, rightX - 1, baseY + 1, baseY + 3, z);
+            MultiWorldPositions.getPortalRegistry().register(world,
+                    new PortalFrameUtils.FrameBounds(Axis.X, leftX + 1, rightX - 1, baseY + 1, baseY + 3, z, z));
             // Choose inner cell closest to 'near'
             int pickX = (Math.abs(near.getX() - (leftX + 1)) <= Math.abs(near.getX() - (rightX - 1))) ? (leftX + 1) : (rightX - 1);
             return new BlockPos(pickX, baseY + 1, z);
@@ -56,31 +61,70 @@ public final class PortalBuilder {
             int maxZ = minZ + 3;
             buildFrameZ(world, x, minZ, maxZ, baseY);
             fillInteriorZ(world, x, minZ + 1, maxZ - 1, baseY + 1, baseY + 3);
+            MultiWorldPositions.getPortalRegistry().register(world,
+                    new PortalFrameUtils.FrameBounds(Axis.Z, x, x, baseY + 1, baseY + 3, minZ + 1, maxZ - 1));
             int pickZ = (Math.abs(near.getZ() - (minZ + 1)) <= Math.abs(near.getZ() - (maxZ - 1))) ? (minZ + 1) : (maxZ - 1);
             return new BlockPos(x, baseY + 1, pickZ);
         }
     }
 
-    private static BlockPos findNearestPortalCell(ServerWorld world, BlockPos near, int radius) {
-        BlockPos best = null;
-        double bestDist2 = Double.MAX_VALUE;
-        int yMin = Math.max(near.getY() - 32, 1);
-        int yMax = Math.min(near.getY() + 32, 319);
-        for (int dx = -radius; dx <= radius; dx++) {
-            for (int dz = -radius; dz <= radius; dz++) {
-                for (int dy = yMin - near.getY(); dy <= yMax - near.getY(); dy++) {
-                    BlockPos p = near.add(dx, dy, dz);
-                    if (world.getBlockState(p).isOf(Blocks.NETHER_PORTAL)) {
-                        double d2 = p.getSquaredDistance(near.getX(), near.getY(), near.getZ());
-                        if (d2 < bestDist2) {
-                            bestDist2 = d2;
-                            best = p.toImmutable();
-                        }
-                    }
-                }
-            }
+    /**
+     * Nearest existing portal cell within the search square, or null. A registered portal that is still
+     * standing is the answer without a terrain search (the registry is kept current as portal blocks go,
+     * see NetherPortalBlockMixin; one found gone here is dropped). Otherwise the POI index is searched for
+     * any portal, vanilla or player-built, and the one found is registered so the next lookup is direct.
+     */
+    static BlockPos findExistingPortal(ServerWorld world, BlockPos near, int searchRadius) {
+        PortalRegistry registry = MultiWorldPositions.getPortalRegistry();
+        for (BlockPos built; (built = registry.findNearest(world, near, searchRadius)) != null; ) {
+            if (world.getBlockState(built).isOf(Blocks.NETHER_PORTAL)) return built;
+            registry.removeAt(world, built);
         }
-        return best;
+        BlockPos found = findNearestPortalCell(world, near, searchRadius, true);
+        if (found != null) registry.register(world, PortalFrameUtils.findNetherFrameBounds(world, found));
+        return found;
+    }
+
+    /**
+     * Where findExistingPortal will probably find a portal, from the registry and the POI index alone: no
+     * block is read, so the site can be loaded before the search runs. Null if there is no portal to
+     * expect, so one would be built at 'near'.
+     */
+    static BlockPos candidateSite(ServerWorld world, BlockPos near, int searchRadius) {
+        BlockPos built = MultiWorldPositions.getPortalRegistry().findNearest(world, near, searchRadius);
+        return (built != null) ? built : findNearestPortalCell(world, near, searchRadius, false);
+    }
+
+    // Closest first; ties go to the lowest x, then z, then y, the order the original block scan met them in
+    static Comparator<BlockPos> portalOrder(BlockPos near) {
+        return Comparator.comparingDouble((BlockPos p) -> p.getSquaredDistance(near))
+                .thenComparingInt(BlockPos::getX)
+                .thenComparingInt(BlockPos::getZ)
+                .thenComparingInt(BlockPos::getY);
+    }
+
+    /**
+     * Nearest nether portal block within a square of the given radius (and 32 blocks vertically), using
+     * the world's point-of-interest index instead of scanning blocks. Chunks are visited in rings around
+     * 'near' and the search stops once no closer portal is possible; only POI data is loaded, nothing
+     * is generated. With 'standing', hits are checked against the block too (loading their chunk).
+     */
+    private static BlockPos findNearestPortalCell(ServerWorld world, BlockPos near, int radius, boolean standing) {
+        PointOfInterestStorage poi = world.getPointOfInterestStorage();
+        Comparator<BlockPos> order = portalOrder(near);
+        ChunkPos center = new ChunkPos(near);
+        return RingSearch.nearest(center.x, center.z, (radius >> 4) + 1, 16, (cx, cz) -> {
+            ChunkPos chunk = new ChunkPos(cx, cz);
+            poi.preloadChunks(world, chunk.getStartPos(), 0);
+            return poi.getInChunk(type -> type.matchesKey(PointOfInterestTypes.NETHER_PORTAL), chunk,
+                            PointOfInterestStorage.OccupationStatus.ANY)
+                    .map(PointOfInterest::getPos)
+                    .filter(p -> Math.abs(p.getX() - near.getX()) <= radius && Math.abs(p.getZ() - near.getZ()) <= radius)
+                    .filter(p -> Math.abs(p.getY() - near.getY()) <= 32)
+                    .filter(p -> !standing || world.getBlockState(p).isOf(Blocks.NETHER_PORTAL))
+                    .min(order)
+                    .orElse(null);
+        }, p -> p.getSquaredDistance(near), order);
     }
 
     private static void buildFrameX(ServerWorld world, int leftX, int rightX, int baseY, int z) {
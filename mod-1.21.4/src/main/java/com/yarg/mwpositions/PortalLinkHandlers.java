@@ -12,26 +12,26 @@ public final class PortalLinkHandlers {
         String targetDim = MultiWorldPositions.getConfig().nextForPortal(g, fromDim, PortalKind.NETHER);
         if (targetDim == null) return false;
         PositionData targetPos = computeNetherLinkedCoords(player, g, fromDim);
-        boolean ok = MultiWorldPositions.getTeleportService().teleport(player, targetDim);
-        if (ok) {
+        // Placed once the hop has completed
+        MultiWorldPositions.teleportAsync(player, targetDim, null).thenAccept(result -> {
+            if (!result.success) return;
             PositionData adjusted = clampYIfNeeded(player, targetPos);
             player.networkHandler.requestTeleport(adjusted.x, adjusted.y, adjusted.z, player.getYaw(), player.getPitch());
-            return true;
-        }
-        return false;
+        });
+        return true;
     }
 
     public static boolean teleportGroupEnd(ServerPlayerEntity player, WorldGroup g, String fromDim) {
         String targetDim = MultiWorldPositions.getConfig().nextForPortal(g, fromDim, PortalKind.END);
         if (targetDim == null) return false;
         PositionData targetPos = computeEndLinkedCoords(player, g, fromDim);
-        boolean ok = MultiWorldPositions.getTeleportService().teleport(player, targetDim);
-        if (ok) {
+        // Placed once the hop has completed
+        MultiWorldPositions.teleportAsync(player, targetDim, null).thenAccept(result -> {
+            if (!result.success) return;
             PositionData adjusted = clampYIfNeeded(player, targetPos);
             player.networkHandler.requestTeleport(adjusted.x, adjusted.y, adjusted.z, player.getYaw(), player.getPitch());
-            return true;
-        }
-        return false;
+        });
+        return true;
     }
 
     private static PositionData computeNetherLinkedCoords(ServerPlayerEntity p, WorldGroup g, String fromDim) {
@@ -1,84 +1,89 @@
 package com.yarg.mwpositions;
 
-import net.minecraft.block.Blocks;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
 
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
-import java.util.UUID;
 
 public class PortalLinkService {
     private static final long COOLDOWN_TICKS = 60; // ~3s at 20 tps
 
-    // Marker set to suppress one-time restore after portal-driven teleports
-    private static final java.util.Set<java.util.UUID> suppressNextRestore = java.util.Collections.newSetFromMap(new java.util.concurrent.ConcurrentHashMap<>());
-    public static void markPortalTransfer(java.util.UUID id) { suppressNextRestore.add(id); }
-    public static boolean consumePortalTransfer(java.util.UUID id) { return suppressNextRestore.remove(id); }
+    // Per-tick polling must not allocate: world keys are interned, so cache their string form by identity
+    private final Map<RegistryKey<World>, String> dimKeys = new IdentityHashMap<>();
 
-    private final Map<UUID, Long> netherCooldown = new HashMap<>();
-    private final Map<UUID, Long> endCooldown = new HashMap<>();
-    private final Map<UUID, Integer> portalContactTicks = new HashMap<>();
+    // Only players whose portal collision fired recently are visited, within the per-tick budget
+    private final PlayerTickScheduler scheduler = new PlayerTickScheduler();
+    private final PlayerTickScheduler.PlayerTask tickPlayerTask = this::tickPlayer;
 
     public void tick(MinecraftServer server) {
+        scheduler.tick(server, tickPlayerTask);
+    }
+
+    /**
+     * Called on the first portal collision of a tick (contact and warm-up are recorded in the session);
+     * queues the player for portal checks until contact stops.
+     */
+    public void onPortalContact(ServerPlayerEntity p, PortalKind kind) {
+        scheduler.add(p.getUuid());
+    }
+
+    private void tickPlayer(ServerPlayerEntity p) {
         ModConfig cfg = MultiWorldPositions.getConfig();
-        for (ServerPlayerEntity p : server.getPlayerManager().getPlayerList()) {
-            String fromDim = p.getWorld().getRegistryKey().getValue().toString();
-            // Skip hubs
-            if (cfg.isHubWorld(fromDim)) continue;
-            WorldGroup g = cfg.findGroupByMember(fromDim);
-            if (g == null) continue;
+        String fromDim = dimKey(p.getWorld());
+        // Skip hubs
+        if (cfg.isHubWorld(fromDim)) { scheduler.remove(p.getUuid()); return; }
+        WorldGroup g = cfg.findGroupByMember(fromDim);
+        if (g == null) { scheduler.remove(p.getUuid()); return; }
 
-            boolean handled = false;
-            boolean inPortal = inNetherPortal(p);
-            // Warmup tracking similar to vanilla behavior
-            if (inPortal) {
-                int t = portalContactTicks.getOrDefault(p.getUuid(), 0) + 1;
-                int cap = Math.max(1, cfg.portalWarmupTicks);
-                if (t > cap) t = cap;
-                portalContactTicks.put(p.getUuid(), t);
-            } else {
-                portalContactTicks.put(p.getUuid(), 0);
-            }
+        boolean handled = false;
+        long now = p.getServer().getTicks();
+        PlayerSession s = PlayerSession.of(p);
+        boolean inPortal = s.touching(PortalKind.NETHER, now);
+        boolean inEndPortal = s.touching(PortalKind.END, now);
+        // No portal checks while the previous move is still completing
+        if (s.teleportsPending > 0) return;
+        if (!inPortal && !inEndPortal) {
+            scheduler.remove(p.getUuid());
+            // Left the portal before the transfer: release the destination warm-up
+            MultiWorldPositions.getArrivalPreloader().cancelWarm(p.getUuid());
+            return;
+        }
+        if (cooldownOk(p, inPortal ? PortalKind.NETHER : PortalKind.END)) {
+            warmUp(p, g, fromDim, inPortal, inEndPortal);
+        } else {
+            // Still in the portal just used: nothing to warm until the cooldown lets another trip through
+            MultiWorldPositions.getArrivalPreloader().cancelWarm(p.getUuid());
+        }
 
-            if (g.linkPortals != null && g.linkPortals.nether && inPortal) {
-                int t = portalContactTicks.getOrDefault(p.getUuid(), 0);
-                if (t >= cfg.portalWarmupTicks) {
-                    handled = handleNetherPortal(p, g, fromDim);
-                }
-            }
-            // Fallback: only when enabled AND standing in lit portal AND complete frame detected
-            if (!handled && g.linkPortals != null && g.linkPortals.nether && cfg.fallbackDetectFrames && inPortal) {
-                var fb = PortalFrameUtils.findNetherFrameBounds((net.minecraft.server.world.ServerWorld) p.getWorld(), p.getBlockPos());
-                if (fb != null) {
-                    int t = portalContactTicks.getOrDefault(p.getUuid(), 0);
-                    if (t >= cfg.portalWarmupTicks) {
-                        handled = handleNetherPortal(p, g, fromDim);
-                    }
-                }
+        if (g.linkPortals != null && g.linkPortals.nether && inPortal) {
+            if (s.portalWarmupTicks >= cfg.portalWarmupTicks) {
+                handled = handleNetherPortal(p, g, fromDim);
             }
-            // End portal visualization after completion: if vanilla didn't create it and allowed, fill interior at y-1
-            if (g.linkPortals != null && g.linkPortals.end && g.createPortalIfMissing) {
-                try {
-                    var sw = (net.minecraft.server.world.ServerWorld) p.getWorld();
-                    if (PortalFrameUtils.isEndRingComplete(sw, p.getBlockPos())) {
-                        PortalFrameUtils.fillEndPortalInterior(sw, p.getBlockPos());
-                    }
-                } catch (Throwable t) {
-                    if (cfg.debugMode) {
-                        MultiWorldPositions.LOGGER.debug("[MWP] End portal visualization check failed: {}", t.toString());
-                    }
+        }
+        // Fallback: only when enabled AND standing in lit portal AND complete frame detected
+        if (!handled && g.linkPortals != null && g.linkPortals.nether && cfg.fallbackDetectFrames && inPortal) {
+            var fb = PortalFrameUtils.findNetherFrameBounds((net.minecraft.server.world.ServerWorld) p.getWorld(), p.getBlockPos());
+            if (fb != null) {
+                if (s.portalWarmupTicks >= cfg.portalWarmupTicks) {
+                    handled = handleNetherPortal(p, g, fromDim);
                 }
             }
-            if (!handled && g.linkPortals != null && g.linkPortals.end && inEndPortal(p)) {
-                handleEndPortal(p, g, fromDim);
-            }
+        }
+        if (!handled && g.linkPortals != null && g.linkPortals.end && inEndPortal) {
+            handleEndPortal(p, g, fromDim);
         }
     }
 
     private boolean handleNetherPortal(ServerPlayerEntity player, WorldGroup group, String fromDim) {
         if (!cooldownOk(player, PortalKind.NETHER)) return false;
+        long resolveStart = System.nanoTime();
         String targetDim = MultiWorldPositions.getConfig().nextForPortal(group, fromDim, PortalKind.NETHER);
         if (targetDim == null) {
             if (MultiWorldPositions.getConfig().debugMode) {
@@ -92,6 +97,18 @@ public class PortalLinkService {
                     fromDim, targetDim, group.id, group.overworld, group.nether);
         }
 
+        // Which portal the player is standing in, for the link cache (read before leaving the world)
+        ServerWorld fromWorld = player.getServerWorld();
+        BlockPos fromCell = PortalLinkCache.portalCellAt(fromWorld, player.getBlockPos());
+        PositionData pos = computeNetherLinkedCoords(player, group, fromDim);
+        PositionData arrival = netherArrival(group, fromDim, targetDim, fromCell, pos);
+        // Destination chunks load in the background from the start of the warm-up; the player stays in the portal until they are ready
+        if (!MultiWorldPositions.getArrivalPreloader().ready(player, targetDim, arrival)) return false;
+        // Portal trips take the first share of the tick's transfer budget
+        if (!MultiWorldPositions.getTransferQueue().admitPortal()) return false;
+        TransferPipeline.Run run = MultiWorldPositions.getTransferPipeline().begin(player, TransferPipeline.Type.NETHER_PORTAL, resolveStart);
+        run.lap(TransferPipeline.Stage.RESOLVE);
+
         // Inline inventory swap for robustness
         InventoryStorage inv = MultiWorldPositions.getInventoryStorage();
         ModConfig cfg = MultiWorldPositions.getConfig();
@@ -102,76 +119,83 @@ public class PortalLinkService {
         else if ("__ungrouped".equals(originGroup)) originProfile = cfg.inventoryProfileForUngrouped;
         if (originGroup != null && originProfile) {
             MultiWorldPositions.LOGGER.debug("[MWP] InvSwap: save origin group {} for {}", originGroup, player.getName().getString());
-            inv.saveForGroup(player, originGroup);
+            run.stage(TransferPipeline.Stage.SAVE_INVENTORY, () -> inv.saveForGroup(player, originGroup));
         }
 
-        PositionData pos = computeNetherLinkedCoords(player, group, fromDim);
-        PortalLinkService.markPortalTransfer(player.getUuid());
-        if (MultiWorldPositions.getTeleportService().teleport(player, targetDim)) {
-            // Update last visited member for this group immediately
-            WorldGroup gg = MultiWorldPositions.getConfig().findGroupByMember(targetDim);
-            if (gg != null && gg.id != null) {
-                MultiWorldPositions.getPositionStorage().setLastGroupMember(player.getUuid(), gg.id, targetDim);
-            }
-            // After cross-dim hop, load destination inventory if profiled
-            String destGroup = cfg.resolveInventoryGroupId(targetDim);
-            boolean destProfile = false;
-            if (group != null) destProfile = group.inventoryProfile;
-            else if ("__default".equals(destGroup)) destProfile = cfg.inventoryProfileForDefaultWorlds;
-            else if ("__ungrouped".equals(destGroup)) destProfile = cfg.inventoryProfileForUngrouped;
-            if (destGroup != null && destProfile) {
-                MultiWorldPositions.LOGGER.debug("[MWP] InvSwap: load dest group {} for {}", destGroup, player.getName().getString());
-                inv.loadForGroup(player, destGroup);
-            }
-            // Ensure a return portal exists (or snap to nearest) in the destination world
+        DimensionChangeListener.beginTransfer(player);
+        // The cooldown starts with the move, so the portal does not send the player again while it completes
+        setCooldown(player, PortalKind.NETHER);
+        run.hold();
+        // Arrive where the warm-up loaded (linked portal or linked coordinates) rather than at the origin's coordinates
+        run.async(TransferPipeline.Stage.TELEPORT, MultiWorldPositions.teleportAsync(player, targetDim, arrival)).thenAccept(result -> {
             try {
-                if (cfg.createReturnPortal) {
-                    var desired = net.minecraft.util.math.BlockPos.ofFloored(pos.x, pos.y, pos.z);
-                    final float yaw = player.getYaw();
-                    final String targetDimFinal = targetDim;
-                    final PositionData scheduledPos = pos;
-                    // Defer heavy search/snap to next tick
-                    player.getServer().execute(() -> {
-                        try {
-                            ServerWorld targetWorld = player.getServerWorld();
-                            var axisPref = PortalSpawnHelper.yawToAxis(yaw);
-                            PortalFrameUtils.FrameBounds preferred = new PortalFrameUtils.FrameBounds(axisPref, 0, 0, 0, 0, 0, 0);
-                            int searchRadius = 128; // vanilla closest-portal search radius
-                            var portalCell = PortalBuilder.ensureReturnPortal(targetWorld, desired, preferred, searchRadius);
-                            PositionData finalPos2 = (portalCell != null)
-                                    ? SafeLocationFinder.findSafeNear(player, targetDimFinal, scheduledPos, portalCell)
-                                    : SafeLocationFinder.findSafe(player, targetDimFinal, scheduledPos);
-                            // Safe placement + mob clearance
-                            TeleportPlacement.placePlayerSafely(player, targetDimFinal, finalPos2);
-                            setCooldown(player, PortalKind.NETHER);
-                            MultiWorldPositions.getPositionStorage().savePlayerData(player.getUuid());
-                        } catch (Throwable t) {
-                            if (cfg.debugMode) {
-                                MultiWorldPositions.LOGGER.debug("[MWP] deferred ensureReturnPortal failed: {}", t.toString());
-                            }
-                            TeleportPlacement.placePlayerSafely(player, targetDimFinal, scheduledPos);
+                if (!result.success || player.isDisconnected()) {
+                    run.abandon();
+                    return;
+                }
+                MultiWorldPositions.getArrivalPreloader().cancelWarm(player.getUuid());
+                // Update last visited member for this group immediately
+                WorldGroup gg = MultiWorldPositions.getConfig().findGroupByMember(targetDim);
+                if (gg != null && gg.id != null) {
+                    MultiWorldPositions.getPositionStorage().setLastGroupMember(player.getUuid(), gg.id, targetDim);
+                }
+                // After cross-dim hop, load destination inventory if profiled
+                String destGroup = cfg.resolveInventoryGroupId(targetDim);
+                boolean destProfile = false;
+                if (group != null) destProfile = group.inventoryProfile;
+                else if ("__default".equals(destGroup)) destProfile = cfg.inventoryProfileForDefaultWorlds;
+                else if ("__ungrouped".equals(destGroup)) destProfile = cfg.inventoryProfileForUngrouped;
+                if (destGroup != null && destProfile) {
+                    MultiWorldPositions.LOGGER.debug("[MWP] InvSwap: load dest group {} for {}", destGroup, player.getName().getString());
+                    run.stage(TransferPipeline.Stage.LOAD_INVENTORY, () -> inv.loadForGroup(player, destGroup));
+                }
+                // Ensure a return portal exists (or snap to nearest) in the destination world
+                try {
+                    if (cfg.createReturnPortal) {
+                        // Repeat trip through a known portal pair: no search at all
+                        PortalLinkCache links = MultiWorldPositions.getPortalLinkCache();
+                        BlockPos linked = run.stage(TransferPipeline.Stage.FIND_PORTAL, () -> links.verified(group.id, fromDim, fromCell, player.getServerWorld()));
+                        if (linked != null) {
+                            PositionData spot = run.stage(TransferPipeline.Stage.FIND_SAFE_SPOT, () -> SafeLocationFinder.findSafeNear(player, targetDim, pos, linked));
+                            run.stage(TransferPipeline.Stage.PLACE, () -> TeleportPlacement.placePlayerSafely(player, targetDim, spot));
                             setCooldown(player, PortalKind.NETHER);
-                            MultiWorldPositions.getPositionStorage().savePlayerData(player.getUuid());
+                            run.stage(TransferPipeline.Stage.PERSIST, () -> MultiWorldPositions.getPositionStorage().savePlayerData(player.getUuid()));
+                            return;
                         }
-                    });
-                    return true; // early return; placement happens next tick
-                }
-            } catch (Throwable t) {
-                if (cfg.debugMode) {
-                    MultiWorldPositions.LOGGER.debug("[MWP] ensureReturnPortal scheduling failed: {}", t.toString());
+                        var axisPref = PortalSpawnHelper.yawToAxis(player.getYaw());
+                        PortalFrameUtils.FrameBounds preferred = new PortalFrameUtils.FrameBounds(axisPref, 0, 0, 0, 0, 0, 0);
+                        int searchRadius = 128; // vanilla closest-portal search radius
+                        // Search runs once chunks are loaded; the player is held in place until then.
+                        // Cooldown starts now so a portal at the parking spot cannot bounce them back.
+                        setCooldown(player, PortalKind.NETHER);
+                        MultiWorldPositions.getReturnPortalResolver().placeAtReturnPortal(player, targetDim, pos, preferred, searchRadius, run, cell -> {
+                            links.link(group.id, fromWorld, fromCell, player.getServerWorld(), cell);
+                            setCooldown(player, PortalKind.NETHER);
+                            run.stage(TransferPipeline.Stage.PERSIST, () -> MultiWorldPositions.getPositionStorage().savePlayerData(player.getUuid()));
+                        });
+                        return; // early return; placement happens once the portal is resolved
+                    }
+                } catch (Throwable t) {
+                    if (cfg.debugMode) {
+                        MultiWorldPositions.LOGGER.debug("[MWP] ensureReturnPortal scheduling failed: {}", t.toString());
+                    }
                 }
+                // If not creating/scheduling return portal, place immediately
+                run.stage(TransferPipeline.Stage.PLACE, () -> TeleportPlacement.placePlayerSafely(player, targetDim, pos));
+                setCooldown(player, PortalKind.NETHER);
+                run.stage(TransferPipeline.Stage.PERSIST, () -> MultiWorldPositions.getPositionStorage().savePlayerData(player.getUuid()));
+            } finally {
+                run.release();
             }
-            // If not creating/scheduling return portal, place immediately
-            TeleportPlacement.placePlayerSafely(player, targetDim, pos);
-            setCooldown(player, PortalKind.NETHER);
-            MultiWorldPositions.getPositionStorage().savePlayerData(player.getUuid());
-            return true;
-        }
-        return false;
+        });
+        // Recorded once the move has completed and the player is placed
+        run.finish();
+        return true;
     }
 
     private boolean handleEndPortal(ServerPlayerEntity player, WorldGroup group, String fromDim) {
         if (!cooldownOk(player, PortalKind.END)) return false;
+        long resolveStart = System.nanoTime();
         String targetDim = MultiWorldPositions.getConfig().nextForPortal(group, fromDim, PortalKind.END);
         if (targetDim == null) {
             if (MultiWorldPositions.getConfig().debugMode) {
@@ -185,6 +209,13 @@ public class PortalLinkService {
                     fromDim, targetDim, group.id, group.overworld, group.end);
         }
 
+        PositionData pos = computeEndLinkedCoords(player, group, fromDim);
+        if (!MultiWorldPositions.getArrivalPreloader().ready(player, targetDim, pos)) return false;
+        // Portal trips take the first share of the tick's transfer budget
+        if (!MultiWorldPositions.getTransferQueue().admitPortal()) return false;
+        TransferPipeline.Run run = MultiWorldPositions.getTransferPipeline().begin(player, TransferPipeline.Type.END_PORTAL, resolveStart);
+        run.lap(TransferPipeline.Stage.RESOLVE);
+
         // Inline inventory swap for robustness
         InventoryStorage inv = MultiWorldPositions.getInventoryStorage();
         ModConfig cfg = MultiWorldPositions.getConfig();
@@ -195,89 +226,106 @@ public class PortalLinkService {
         else if ("__ungrouped".equals(originGroup)) originProfile = cfg.inventoryProfileForUngrouped;
         if (originGroup != null && originProfile) {
             MultiWorldPositions.LOGGER.debug("[MWP] InvSwap: save origin group {} for {}", originGroup, player.getName().getString());
-            inv.saveForGroup(player, originGroup);
+            run.stage(TransferPipeline.Stage.SAVE_INVENTORY, () -> inv.saveForGroup(player, originGroup));
         }
 
-        PositionData pos = computeEndLinkedCoords(player, group, fromDim);
-        PortalLinkService.markPortalTransfer(player.getUuid());
-        if (MultiWorldPositions.getTeleportService().teleport(player, targetDim)) {
-            // Update last visited member for this group immediately
-            WorldGroup gg = MultiWorldPositions.getConfig().findGroupByMember(targetDim);
-            if (gg != null && gg.id != null) {
-                MultiWorldPositions.getPositionStorage().setLastGroupMember(player.getUuid(), gg.id, targetDim);
-            }
-            String destGroup = cfg.resolveInventoryGroupId(targetDim);
-            boolean destProfile = false;
-            if (group != null) destProfile = group.inventoryProfile;
-            else if ("__default".equals(destGroup)) destProfile = cfg.inventoryProfileForDefaultWorlds;
-            else if ("__ungrouped".equals(destGroup)) destProfile = cfg.inventoryProfileForUngrouped;
-            if (destGroup != null && destProfile) {
-                MultiWorldPositions.LOGGER.debug("[MWP] InvSwap: load dest group {} for {}", destGroup, player.getName().getString());
-                inv.loadForGroup(player, destGroup);
-            }
-            // Build/ensure a platform in the End and optionally spawn the dragon, then place safely
+        DimensionChangeListener.beginTransfer(player);
+        // The cooldown starts with the move, so the portal does not send the player again while it completes
+        setCooldown(player, PortalKind.END);
+        run.hold();
+        run.async(TransferPipeline.Stage.TELEPORT, MultiWorldPositions.teleportAsync(player, targetDim, pos)).thenAccept(result -> {
             try {
-                ServerWorld targetWorld = player.getServerWorld();
-                var desired = net.minecraft.util.math.BlockPos.ofFloored(pos.x, pos.y, pos.z);
-                if (cfg.endCreateArrivalPlatform) {
-                    var platformTop = EndArrivalHelper.ensureArrivalPlatform(targetWorld, desired);
-                    if (cfg.endSpawnDragonOnArrival) {
-                        EndArrivalHelper.spawnDragonIfEnabled(targetWorld);
-                    }
-                    pos = new PositionData(platformTop.getX() + 0.5, platformTop.getY(), platformTop.getZ() + 0.5, player.getYaw(), player.getPitch());
+                if (!result.success || player.isDisconnected()) {
+                    run.abandon();
+                    return;
+                }
+                MultiWorldPositions.getArrivalPreloader().cancelWarm(player.getUuid());
+                // Update last visited member for this group immediately
+                WorldGroup gg = MultiWorldPositions.getConfig().findGroupByMember(targetDim);
+                if (gg != null && gg.id != null) {
+                    MultiWorldPositions.getPositionStorage().setLastGroupMember(player.getUuid(), gg.id, targetDim);
+                }
+                String destGroup = cfg.resolveInventoryGroupId(targetDim);
+                boolean destProfile = false;
+                if (group != null) destProfile = group.inventoryProfile;
+                else if ("__default".equals(destGroup)) destProfile = cfg.inventoryProfileForDefaultWorlds;
+                else if ("__ungrouped".equals(destGroup)) destProfile = cfg.inventoryProfileForUngrouped;
+                if (destGroup != null && destProfile) {
+                    MultiWorldPositions.LOGGER.debug("[MWP] InvSwap: load dest group {} for {}", destGroup, player.getName().getString());
+                    run.stage(TransferPipeline.Stage.LOAD_INVENTORY, () -> inv.loadForGroup(player, destGroup));
                 }
-            } catch (Throwable t) {
-                if (cfg.debugMode) {
-                    MultiWorldPositions.LOGGER.debug("[MWP] End arrival platform setup failed: {}", t.toString());
+                // Build/ensure a platform in the End and optionally spawn the dragon, then place safely
+                PositionData landing = pos;
+                try {
+                    ServerWorld targetWorld = player.getServerWorld();
+                    var desired = net.minecraft.util.math.BlockPos.ofFloored(pos.x, pos.y, pos.z);
+                    if (cfg.endCreateArrivalPlatform) {
+                        var platformTop = run.stage(TransferPipeline.Stage.FIND_PORTAL, () -> EndArrivalHelper.ensureArrivalPlatform(targetWorld, desired));
+                        if (cfg.endSpawnDragonOnArrival) {
+                            EndArrivalHelper.spawnDragonIfEnabled(targetWorld);
+                        }
+                        landing = new PositionData(platformTop.getX() + 0.5, platformTop.getY(), platformTop.getZ() + 0.5, player.getYaw(), player.getPitch());
+                    }
+                } catch (Throwable t) {
+                    if (cfg.debugMode) {
+                        MultiWorldPositions.LOGGER.debug("[MWP] End arrival platform setup failed: {}", t.toString());
+                    }
                 }
+                PositionData spot = landing;
+                run.stage(TransferPipeline.Stage.PLACE, () -> TeleportPlacement.placePlayerSafely(player, targetDim, spot));
+                setCooldown(player, PortalKind.END);
+                run.stage(TransferPipeline.Stage.PERSIST, () -> MultiWorldPositions.getPositionStorage().savePlayerData(player.getUuid()));
+            } finally {
+                run.release();
             }
-            TeleportPlacement.placePlayerSafely(player, targetDim, pos);
-            setCooldown(player, PortalKind.END);
-            MultiWorldPositions.getPositionStorage().savePlayerData(player.getUuid());
-            return true;
-        }
-        return false;
+        });
+        // Recorded once the move has completed and the player is placed
+        run.finish();
+        return true;
     }
 
-    private boolean inNetherPortal(ServerPlayerEntity p) {
-        var w = p.getWorld();
-        var bp = p.getBlockPos();
-        return w.getBlockState(bp).isOf(Blocks.NETHER_PORTAL)
-                || w.getBlockState(bp.up()).isOf(Blocks.NETHER_PORTAL);
+    private String dimKey(World w) {
+        return dimKeys.computeIfAbsent(w.getRegistryKey(), k -> k.getValue().toString());
     }
 
-    private boolean inEndPortal(ServerPlayerEntity p) {
-        var w = p.getWorld();
-        var bp = p.getBlockPos();
-        return w.getBlockState(bp).isOf(Blocks.END_PORTAL)
-                || w.getBlockState(bp.down()).isOf(Blocks.END_PORTAL);
+    /**
+     * The destination of a portal is known from the first contact, so its chunks (and for Nether portals the
+     * return-portal search area) start loading while the warm-up runs instead of on the transfer tick.
+     */
+    private void warmUp(ServerPlayerEntity p, WorldGroup g, String fromDim, boolean inPortal, boolean inEndPortal) {
+        if (g.linkPortals == null) return;
+        ModConfig cfg = MultiWorldPositions.getConfig();
+        ArrivalPreloader preloader = MultiWorldPositions.getArrivalPreloader();
+        // Standing still in the portal: the destination is the one already warming, so recompute nothing
+        PlayerSession s = PlayerSession.of(p);
+        long block = p.getBlockPos().asLong();
+        RegistryKey<World> worldKey = p.getWorld().getRegistryKey();
+        if (s.warmBlock == block && s.warmWorldKey == worldKey && preloader.isWarming(p.getUuid())) return;
+        s.warmBlock = block;
+        s.warmWorldKey = worldKey;
+        if (inPortal && g.linkPortals.nether) {
+            String targetDim = cfg.nextForPortal(g, fromDim, PortalKind.NETHER);
+            if (targetDim == null) return;
+            BlockPos fromCell = PortalLinkCache.portalCellAt((ServerWorld) p.getWorld(), p.getBlockPos());
+            PositionData pos = computeNetherLinkedCoords(p, g, fromDim);
+            PositionData arrival = netherArrival(g, fromDim, targetDim, fromCell, pos);
+            if (preloader.warm(p, targetDim, arrival) && arrival == pos && cfg.createReturnPortal) {
+                ServerWorld targetWorld = p.getServer().getWorld(RegistryKey.of(RegistryKeys.WORLD, Identifier.of(targetDim)));
+                if (targetWorld != null) {
+                    MultiWorldPositions.getReturnPortalResolver().prefetch(p.getUuid(), targetWorld, BlockPos.ofFloored(pos.x, pos.y, pos.z), 128);
+                }
+            }
+        } else if (inEndPortal && g.linkPortals.end) {
+            String targetDim = cfg.nextForPortal(g, fromDim, PortalKind.END);
+            if (targetDim != null) preloader.warm(p, targetDim, computeEndLinkedCoords(p, g, fromDim));
+        }
     }
 
-    // Heuristic: detect if player stands inside an obsidian-bounded cavity resembling a nether frame
-    private boolean inNetherFrameCavity(ServerPlayerEntity p) {
-        var w = p.getWorld();
-        var bp = p.getBlockPos();
-        var stateAt = w.getBlockState(bp);
-        // Only consider if player is in air, cave air, void air, or fire inside the frame
-        boolean insideCell = stateAt.isAir() || stateAt.isOf(Blocks.CAVE_AIR) || stateAt.isOf(Blocks.VOID_AIR) || stateAt.isOf(Blocks.FIRE);
-        if (!insideCell) return false;
-        int obsidianCount = 0;
-        // Sample a small cross around the player up to distance 2 in X/Z at feet level
-        int[][] offsets = new int[][] { {-1,0}, {-2,0}, {1,0}, {2,0}, {0,-1}, {0,-2}, {0,1}, {0,2} };
-        for (int[] off : offsets) {
-            if (w.getBlockState(bp.add(off[0], 0, off[1])).isOf(Blocks.OBSIDIAN)) obsidianCount++;
-        }
-        // Also check vertical neighbors one block above and below for frame edges
-        if (w.getBlockState(bp.add(-1, 1, 0)).isOf(Blocks.OBSIDIAN)) obsidianCount++;
-        if (w.getBlockState(bp.add(1, 1, 0)).isOf(Blocks.OBSIDIAN)) obsidianCount++;
-        if (w.getBlockState(bp.add(0, 1, -1)).isOf(Blocks.OBSIDIAN)) obsidianCount++;
-        if (w.getBlockState(bp.add(0, 1, 1)).isOf(Blocks.OBSIDIAN)) obsidianCount++;
-        if (w.getBlockState(bp.add(-1, -1, 0)).isOf(Blocks.OBSIDIAN)) obsidianCount++;
-        if (w.getBlockState(bp.add(1, -1, 0)).isOf(Blocks.OBSIDIAN)) obsidianCount++;
-        if (w.getBlockState(bp.add(0, -1, -1)).isOf(Blocks.OBSIDIAN)) obsidianCount++;
-        if (w.getBlockState(bp.add(0, -1, 1)).isOf(Blocks.OBSIDIAN)) obsidianCount++;
-        // Threshold: if we see enough obsidian around, assume we're inside a frame cavity
-        return obsidianCount >= 4; // conservative threshold
+    // Next to the linked portal when the pair is known (not verified yet), else the scaled coordinates
+    private static PositionData netherArrival(WorldGroup g, String fromDim, String targetDim, BlockPos fromCell, PositionData pos) {
+        BlockPos linked = MultiWorldPositions.getPortalLinkCache().linked(g.id, fromDim, fromCell, targetDim);
+        if (linked == null) return pos;
+        return new PositionData(linked.getX() + 0.5, linked.getY(), linked.getZ() + 0.5, pos.yaw, pos.pitch);
     }
 
     private PositionData computeNetherLinkedCoords(ServerPlayerEntity p, WorldGroup g, String fromDim) {
@@ -300,26 +348,18 @@ public class PortalLinkService {
 
     private boolean cooldownOk(ServerPlayerEntity p, PortalKind kind) {
         long tick = p.getServer().getTicks();
-        Map<UUID, Long> map = (kind == PortalKind.NETHER) ? netherCooldown : endCooldown;
-        Long last = map.get(p.getUuid());
-        return last == null || (tick - last) >= COOLDOWN_TICKS;
+        PlayerSession s = PlayerSession.of(p);
+        long last = (kind == PortalKind.NETHER) ? s.netherCooldownTick : s.endCooldownTick;
+        return last == PlayerSession.NEVER || (tick - last) >= COOLDOWN_TICKS;
     }
 
     private void setCooldown(ServerPlayerEntity p, PortalKind kind) {
         long tick = p.getServer().getTicks();
+        PlayerSession s = PlayerSession.of(p);
         if (kind == PortalKind.NETHER) {
-            netherCooldown.put(p.getUuid(), tick);
+            s.netherCooldownTick = tick;
         } else {
-            endCooldown.put(p.getUuid(), tick);
+            s.endCooldownTick = tick;
         }
     }
-
-    private PositionData clampYIfNeeded(ServerPlayerEntity player, PositionData in) {
-        ModConfig cfg = MultiWorldPositions.getConfig();
-        if (!cfg.clampYToWorldBounds) return in;
-        double y = in.y;
-        if (y < 0) y = 0;
-        if (y > 320) y = 320;
-        return new PositionData(in.x, y, in.z, in.yaw, in.pitch);
-    }
 }
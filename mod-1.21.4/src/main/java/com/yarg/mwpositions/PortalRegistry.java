@@ -0,0 +1,204 @@
+package com.yarg.mwpositions;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Direction.Axis;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Persistent per-dimension index of Nether portals built by the mod (or found by its searches), bucketed
+ * by chunk so the nearest known portal can be found without loading or scanning terrain. Entries are
+ * dropped as soon as a portal block goes, however it goes (see NetherPortalBlockMixin), or when a player
+ * breaks a frame block. A portal removed while its chunk was not loaded is only noticed by the caller
+ * that finds it gone. Changes are written to disk in batches, at most every few seconds and on shutdown.
+ */
+public final class PortalRegistry {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final Path STORAGE_DIR = Path.of("config", "worldportals");
+    private static final int FLUSH_INTERVAL_TICKS = 100;
+
+    // Persisted form of one portal (interior bounds, same meaning as FrameBounds)
+    private static class Entry {
+        String axis;
+        int minX, maxX, minY, maxY, minZ, maxZ;
+
+        PortalFrameUtils.FrameBounds toBounds() {
+            return new PortalFrameUtils.FrameBounds("z".equals(axis) ? Axis.Z : Axis.X, minX, maxX, minY, maxY, minZ, maxZ);
+        }
+
+        static Entry of(PortalFrameUtils.FrameBounds fb) {
+            Entry e = new Entry();
+            e.axis = (fb.axis == Axis.Z) ? "z" : "x";
+            e.minX = fb.minX; e.maxX = fb.maxX; e.minY = fb.minY; e.maxY = fb.maxY; e.minZ = fb.minZ; e.maxZ = fb.maxZ;
+            return e;
+        }
+    }
+
+    // dimension key -> chunk (ChunkPos#toLong of the interior's min corner) -> portals
+    private final Map<String, Map<Long, List<PortalFrameUtils.FrameBounds>>> byDimension = new HashMap<>();
+    // Dimensions changed since their file was last written
+    private final Set<String> dirty = new HashSet<>();
+    private int ticksUntilFlush = FLUSH_INTERVAL_TICKS;
+
+    public PortalRegistry() {
+        try {
+            Files.createDirectories(STORAGE_DIR);
+        } catch (IOException e) {
+            MultiWorldPositions.LOGGER.error("[MWP] Failed to create portal registry dir", e);
+        }
+    }
+
+    public void register(ServerWorld world, PortalFrameUtils.FrameBounds fb) {
+        if (fb == null) return;
+        String dim = world.getRegistryKey().getValue().toString();
+        Map<Long, List<PortalFrameUtils.FrameBounds>> grid = gridFor(dim);
+        List<PortalFrameUtils.FrameBounds> cell = grid.computeIfAbsent(ChunkPos.toLong(fb.minX >> 4, fb.minZ >> 4), k -> new ArrayList<>());
+        for (PortalFrameUtils.FrameBounds known : cell) {
+            if (sameBounds(known, fb)) return;
+        }
+        cell.add(fb);
+        dirty.add(dim);
+    }
+
+    /** Removes every portal whose frame (interior plus the obsidian ring) contains pos. */
+    public void removeAt(ServerWorld world, BlockPos pos) {
+        String dim = world.getRegistryKey().getValue().toString();
+        Map<Long, List<PortalFrameUtils.FrameBounds>> grid = gridFor(dim);
+        if (grid.isEmpty()) return;
+        boolean changed = false;
+        // The frame extends one block past the interior, so it can reach into the neighboring chunks
+        for (int cx = (pos.getX() - 1) >> 4; cx <= (pos.getX() + 1) >> 4; cx++) {
+            for (int cz = (pos.getZ() - 1) >> 4; cz <= (pos.getZ() + 1) >> 4; cz++) {
+                List<PortalFrameUtils.FrameBounds> cell = grid.get(ChunkPos.toLong(cx, cz));
+                if (cell == null) continue;
+                for (Iterator<PortalFrameUtils.FrameBounds> it = cell.iterator(); it.hasNext(); ) {
+                    if (frameContains(it.next(), pos)) {
+                        it.remove();
+                        changed = true;
+                    }
+                }
+                if (cell.isEmpty()) grid.remove(ChunkPos.toLong(cx, cz));
+            }
+        }
+        if (changed) dirty.add(dim);
+    }
+
+    /**
+     * Portal cell of the nearest registered portal within a square of the given radius (and 32 blocks
+     * vertically), or null. Answered from the index alone, so the portal may be gone since; a caller that
+     * finds it gone drops it with removeAt.
+     */
+    public BlockPos findNearest(ServerWorld world, BlockPos near, int radius) {
+        Map<Long, List<PortalFrameUtils.FrameBounds>> grid = gridFor(world.getRegistryKey().getValue().toString());
+        if (grid.isEmpty()) return null;
+        BlockPos best = null;
+        double bestDist2 = Double.MAX_VALUE;
+        for (int cx = (near.getX() - radius) >> 4; cx <= (near.getX() + radius) >> 4; cx++) {
+            for (int cz = (near.getZ() - radius) >> 4; cz <= (near.getZ() + radius) >> 4; cz++) {
+                List<PortalFrameUtils.FrameBounds> cell = grid.get(ChunkPos.toLong(cx, cz));
+                if (cell == null) continue;
+                for (PortalFrameUtils.FrameBounds fb : cell) {
+                    BlockPos p = closestInteriorCell(fb, near);
+                    if (Math.abs(p.getX() - near.getX()) > radius || Math.abs(p.getZ() - near.getZ()) > radius) continue;
+                    if (Math.abs(p.getY() - near.getY()) > 32) continue;
+                    double d2 = p.getSquaredDistance(near);
+                    if (d2 < bestDist2) {
+                        bestDist2 = d2;
+                        best = p;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /** Writes the dimensions changed since the last write, every few seconds. */
+    public void tick() {
+        if (dirty.isEmpty() || --ticksUntilFlush > 0) return;
+        flush();
+    }
+
+    /** Writes every changed dimension now, e.g. on shutdown. */
+    public void flush() {
+        for (String dim : dirty) save(dim, byDimension.get(dim));
+        dirty.clear();
+        ticksUntilFlush = FLUSH_INTERVAL_TICKS;
+    }
+
+    private static BlockPos closestInteriorCell(PortalFrameUtils.FrameBounds fb, BlockPos near) {
+        int x = Math.max(fb.minX, Math.min(fb.maxX, near.getX()));
+        int z = Math.max(fb.minZ, Math.min(fb.maxZ, near.getZ()));
+        return new BlockPos(x, fb.minY, z);
+    }
+
+    private static boolean frameContains(PortalFrameUtils.FrameBounds fb, BlockPos p) {
+        int pad = 1;
+        int padX = (fb.axis == Axis.X) ? pad : 0;
+        int padZ = (fb.axis == Axis.Z) ? pad : 0;
+        return p.getX() >= fb.minX - padX && p.getX() <= fb.maxX + padX
+                && p.getY() >= fb.minY - pad && p.getY() <= fb.maxY + pad
+                && p.getZ() >= fb.minZ - padZ && p.getZ() <= fb.maxZ + padZ;
+    }
+
+    private static boolean sameBounds(PortalFrameUtils.FrameBounds a, PortalFrameUtils.FrameBounds b) {
+        return a.axis == b.axis && a.minX == b.minX && a.maxX == b.maxX && a.minY == b.minY
+                && a.maxY == b.maxY && a.minZ == b.minZ && a.maxZ == b.maxZ;
+    }
+
+    private Map<Long, List<PortalFrameUtils.FrameBounds>> gridFor(String dim) {
+        Map<Long, List<PortalFrameUtils.FrameBounds>> grid = byDimension.get(dim);
+        if (grid == null) {
+            grid = load(dim);
+            byDimension.put(dim, grid);
+        }
+        return grid;
+    }
+
+    private static Path fileFor(String dim) {
+        return STORAGE_DIR.resolve(dim.replace(':', '_').replace('/', '_') + ".json");
+    }
+
+    private static Map<Long, List<PortalFrameUtils.FrameBounds>> load(String dim) {
+        Map<Long, List<PortalFrameUtils.FrameBounds>> grid = new HashMap<>();
+        Path file = fileFor(dim);
+        if (!Files.exists(file)) return grid;
+        try {
+            List<Entry> entries = GSON.fromJson(Files.readString(file), new TypeToken<List<Entry>>(){}.getType());
+            if (entries != null) {
+                for (Entry e : entries) {
+                    PortalFrameUtils.FrameBounds fb = e.toBounds();
+                    grid.computeIfAbsent(ChunkPos.toLong(fb.minX >> 4, fb.minZ >> 4), k -> new ArrayList<>()).add(fb);
+                }
+            }
+        } catch (Exception e) {
+            MultiWorldPositions.LOGGER.error("[MWP] Failed to read portal registry for {}", dim, e);
+        }
+        return grid;
+    }
+
+    private static void save(String dim, Map<Long, List<PortalFrameUtils.FrameBounds>> grid) {
+        List<Entry> entries = new ArrayList<>();
+        for (List<PortalFrameUtils.FrameBounds> cell : grid.values()) {
+            for (PortalFrameUtils.FrameBounds fb : cell) entries.add(Entry.of(fb));
+        }
+        try {
+            Files.writeString(fileFor(dim), GSON.toJson(entries));
+        } catch (IOException e) {
+            MultiWorldPositions.LOGGER.error("[MWP] Failed to write portal registry for {}", dim, e);
+        }
+    }
+}
@@ -32,10 +32,10 @@ public final class PortalSpawnHelper {
                     BlockPos base = near.add(dx, dy, dz);
                     Axis axisPref = yawToAxis(yawDegrees);
                     PortalFrameUtils.FrameBounds built = tryBuildAt(world, base, axisPref);
-                    if (built != null) return new SpawnResult(true, built);
+                    if (built != null) return built(world, built);
                     Axis other = (axisPref == Axis.X) ? Axis.Z : Axis.X;
                     built = tryBuildAt(world, base, other);
-                    if (built != null) return new SpawnResult(true, built);
+                    if (built != null) return built(world, built);
                 }
             }
         }
@@ -57,7 +57,7 @@ public final class PortalSpawnHelper {
             if (!clearRect(world, leftX + 1, rightX - 1, baseY + 1, baseY + 3, z, Axis.X)) return SpawnResult.fail();
             buildFrameX(world, leftX, rightX, baseY, z);
             fillInteriorX(world, leftX + 1, rightX - 1, baseY + 1, baseY + 3, z);
-            return new SpawnResult(true, new PortalFrameUtils.FrameBounds(Axis.X, leftX + 1, rightX - 1, baseY + 1, baseY + 3, z, z));
+            return built(world, new PortalFrameUtils.FrameBounds(Axis.X, leftX + 1, rightX - 1, baseY + 1, baseY + 3, z, z));
         } else {
             int x = corner.getX();
             int minZ = corner.getZ();
@@ -65,17 +65,20 @@ public final class PortalSpawnHelper {
             if (!clearRect(world, minZ + 1, maxZ - 1, baseY + 1, baseY + 3, x, Axis.Z)) return SpawnResult.fail();
             buildFrameZ(world, x, minZ, maxZ, baseY);
             fillInteriorZ(world, x, minZ + 1, maxZ - 1, baseY + 1, baseY + 3);
-            return new SpawnResult(true, new PortalFrameUtils.FrameBounds(Axis.Z, x, x, baseY + 1, baseY + 3, minZ + 1, maxZ - 1));
+            return built(world, new PortalFrameUtils.FrameBounds(Axis.Z, x, x, baseY + 1, baseY + 3, minZ + 1, maxZ - 1));
         }
     }
 
+    // Every portal built here is recorded so later return-portal lookups find it without a search
+    private static SpawnResult built(ServerWorld world, PortalFrameUtils.FrameBounds fb) {
+        MultiWorldPositions.getPortalRegistry().register(world, fb);
+        return new SpawnResult(true, fb);
+    }
+
     private static PortalFrameUtils.FrameBounds tryBuildAt(ServerWorld world, BlockPos base, Axis axis) {
         // Build standard outer 4x5 with inner 2x3. Ensure ground under bottom.
-        int y = base.getY();
         // Find ground one block below bottom edge (conservative)
-        while (y > 2 && !world.getBlockState(new BlockPos(base.getX(), y - 1, base.getZ())).isSolidBlock(world, new BlockPos(base.getX(), y - 1, base.getZ()))) {
-            y--;
-        }
+        int y = SectionScanner.dropToGround(world, base.getX(), base.getY(), base.getZ(), 2);
         int baseY = Math.max(2, y);
         if (axis == Axis.X) {
             int z = base.getZ();
@@ -98,20 +101,9 @@ public final class PortalSpawnHelper {
     }
 
     private static boolean clearRect(ServerWorld w, int a, int b, int minY, int maxY, int fixed, Axis axis) {
-        for (int y = minY; y <= maxY; y++) {
-            if (axis == Axis.X) {
-                for (int x = a; x <= b; x++) {
-                    BlockPos p = new BlockPos(x, y, fixed);
-                    if (!w.getBlockState(p).isAir()) return false;
-                }
-            } else {
-                for (int z = a; z <= b; z++) {
-                    BlockPos p = new BlockPos(fixed, y, z);
-                    if (!w.getBlockState(p).isAir()) return false;
-                }
-            }
-        }
-        return true;
+        return (axis == Axis.X)
+                ? SectionScanner.allAir(w, a, b, minY, maxY, fixed, fixed)
+                : SectionScanner.allAir(w, fixed, fixed, minY, maxY, a, b);
     }
 
     private static void buildFrameX(ServerWorld world, int leftX, int rightX, int baseY, int z) {
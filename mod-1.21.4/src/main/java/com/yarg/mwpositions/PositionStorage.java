@@ -16,23 +16,8 @@ import java.util.Map;
 import java.util.UUID;
 
 public class PositionStorage {
-    // Transient cache of last known player position per tick (not persisted)
-    private static class LastKnown {
-        final String dimensionKey;
-        final PositionData pos;
-        final boolean inNetherPortalCell; // NEW: nether portal at feet/head
-        final boolean inEndPortalCell;    // NEW: end portal at feet/below
-        final boolean coolingEnderPearl;  // NEW: player has ender pearl cooldown
-        LastKnown(String dimensionKey, PositionData pos, boolean inNetherPortalCell, boolean inEndPortalCell, boolean coolingEnderPearl) {
-            this.dimensionKey = dimensionKey;
-            this.pos = pos;
-            this.inNetherPortalCell = inNetherPortalCell;
-            this.inEndPortalCell = inEndPortalCell;
-            this.coolingEnderPearl = coolingEnderPearl;
-        }
-    }
-
-    private final Map<UUID, LastKnown> lastKnownByPlayer = new HashMap<>();
+    // Shared probe stack for the pearl cooldown group lookup; never handed out or mutated
+    private static final net.minecraft.item.ItemStack ENDER_PEARL_PROBE = new net.minecraft.item.ItemStack(net.minecraft.item.Items.ENDER_PEARL);
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
     private static final Path STORAGE_PATH = Path.of("config", "worldpositions");
 
@@ -179,14 +164,18 @@ public class PositionStorage {
     }
 
     public void saveAll(MinecraftServer server) {
-        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
-            String dimensionKey = player.getWorld().getRegistryKey().getValue().toString();
-
-            if (!MultiWorldPositions.getConfig().isHubWorld(dimensionKey)) {
-                savePosition(player);
+        // Walk the roster per dimension so the hub check runs once per world, not once per player
+        OnlineRoster roster = MultiWorldPositions.getOnlineRoster();
+        for (String dimensionKey : roster.dimensions()) {
+            boolean hub = MultiWorldPositions.getConfig().isHubWorld(dimensionKey);
+            for (UUID id : roster.inDimension(dimensionKey)) {
+                ServerPlayerEntity player = server.getPlayerManager().getPlayer(id);
+                if (player == null) continue;
+                if (!hub) {
+                    savePosition(player);
+                }
+                savePlayerData(id);
             }
-
-            savePlayerData(player.getUuid());
         }
 
         MultiWorldPositions.LOGGER.info("Saved positions for {} players",
@@ -242,41 +231,72 @@ public class PositionStorage {
         savePlayerData(playerId);
     }
 
-    // --- Transient last-known cache helpers ---
+    // --- Transient last-known cache helpers (the sample lives in the player's PlayerSession) ---
+    // Samples are event-driven: movement past a threshold, portal contact, pearl use and right before
+    // any teleportTo (see mixins). Players standing still are never sampled.
     public void updateLastKnown(ServerPlayerEntity player) {
-        String dim = player.getWorld().getRegistryKey().getValue().toString();
-        PositionData pos = new PositionData(player.getX(), player.getY(), player.getZ(), player.getYaw(), player.getPitch());
+        sampleLastKnown(player, false);
+    }
+
+    /**
+     * Called after each accepted movement packet; only re-samples once the player has moved
+     * farther than lastKnownSampleDistance from the previous sample (or changed world).
+     */
+    public void onPlayerMoved(ServerPlayerEntity player) {
         net.minecraft.server.world.ServerWorld w = player.getServerWorld();
-        net.minecraft.util.math.BlockPos feet = player.getBlockPos();
-        boolean inNether = w.getBlockState(feet).isOf(net.minecraft.block.Blocks.NETHER_PORTAL)
-                || w.getBlockState(feet.up()).isOf(net.minecraft.block.Blocks.NETHER_PORTAL);
-        boolean inEnd = w.getBlockState(feet).isOf(net.minecraft.block.Blocks.END_PORTAL)
-                || w.getBlockState(feet.down()).isOf(net.minecraft.block.Blocks.END_PORTAL);
-        boolean pearlCd = player.getItemCooldownManager().isCoolingDown(new net.minecraft.item.ItemStack(net.minecraft.item.Items.ENDER_PEARL));
-        lastKnownByPlayer.put(player.getUuid(), new LastKnown(dim, pos, inNether, inEnd, pearlCd));
-        if (MultiWorldPositions.getConfig().debugMode) {
-            // Keep debug light: don't spam every tick; print only occasionally if needed.
+        onMoved(PlayerSession.of(player), w.getRegistryKey(), player.getX(), player.getY(), player.getZ(),
+                player.getYaw(), player.getPitch(), w.getServer().getTicks(),
+                MultiWorldPositions.getConfig().lastKnownSampleDistance, player.getItemCooldownManager());
+    }
+
+    /** The movement sampling itself, apart from the player it reads from. Runs every tick per player. */
+    static void onMoved(PlayerSession s, RegistryKey<World> worldKey, double x, double y, double z, float yaw, float pitch,
+                        long now, double threshold, net.minecraft.entity.player.ItemCooldownManager cooldowns) {
+        if (s.hasLastKnown && s.lastWorldKey == worldKey) {
+            double dx = x - s.lastX;
+            double dy = y - s.lastY;
+            double dz = z - s.lastZ;
+            if (dx * dx + dy * dy + dz * dz < threshold * threshold) return;
         }
+        s.recordSample(worldKey, x, y, z, yaw, pitch, now, cooldowns.isCoolingDown(ENDER_PEARL_PROBE));
+    }
+
+    /** Called on the first portal collision of a tick; the contact itself is recorded in the session. */
+    public void onPortalContact(ServerPlayerEntity player) {
+        sampleLastKnown(player, false);
+    }
+
+    // The cooldown is only applied after the use callback returns, so record it explicitly
+    public void onEnderPearlUsed(ServerPlayerEntity player) {
+        sampleLastKnown(player, true);
+    }
+
+    private void sampleLastKnown(ServerPlayerEntity player, boolean pearlUsed) {
+        PlayerSession s = PlayerSession.of(player);
+        net.minecraft.server.world.ServerWorld w = player.getServerWorld();
+        long now = w.getServer().getTicks();
+        s.recordSample(w.getRegistryKey(), player.getX(), player.getY(), player.getZ(), player.getYaw(), player.getPitch(),
+                now, pearlUsed || player.getItemCooldownManager().isCoolingDown(ENDER_PEARL_PROBE));
     }
 
     public boolean wasInPortalCell(java.util.UUID playerId) {
-        LastKnown lk = lastKnownByPlayer.get(playerId);
-        return lk != null && lk.inNetherPortalCell;
+        PlayerSession s = PlayerSession.get(playerId);
+        return s != null && s.hasLastKnown && s.inNetherPortalCell;
     }
 
     public boolean wasInNetherPortalCell(java.util.UUID playerId) {
-        LastKnown lk = lastKnownByPlayer.get(playerId);
-        return lk != null && lk.inNetherPortalCell;
+        PlayerSession s = PlayerSession.get(playerId);
+        return s != null && s.hasLastKnown && s.inNetherPortalCell;
     }
 
     public boolean wasInEndPortalCell(java.util.UUID playerId) {
-        LastKnown lk = lastKnownByPlayer.get(playerId);
-        return lk != null && lk.inEndPortalCell;
+        PlayerSession s = PlayerSession.get(playerId);
+        return s != null && s.hasLastKnown && s.inEndPortalCell;
     }
 
     public boolean hadEnderPearlCooldown(java.util.UUID playerId) {
-        LastKnown lk = lastKnownByPlayer.get(playerId);
-        return lk != null && lk.coolingEnderPearl;
+        PlayerSession s = PlayerSession.get(playerId);
+        return s != null && s.hasLastKnown && s.coolingEnderPearl;
     }
 
     public void saveCachedOriginIfMatches(ServerPlayerEntity player, String originKey) {
@@ -284,17 +304,18 @@ public class PositionStorage {
         if (cfg.isHubWorld(originKey)) {
             return; // never save hub worlds
         }
-        LastKnown lk = lastKnownByPlayer.get(player.getUuid());
-        if (lk != null && originKey.equals(lk.dimensionKey)) {
+        PlayerSession s = PlayerSession.get(player.getUuid());
+        if (s != null && s.hasLastKnown && originKey.equals(s.lastWorldKey.getValue().toString())) {
             // Persist the cached origin position under the origin dimension
-            playerPositions.computeIfAbsent(player.getUuid(), k -> new HashMap<>()).put(originKey, lk.pos);
+            PositionData pos = new PositionData(s.lastX, s.lastY, s.lastZ, s.lastYaw, s.lastPitch);
+            playerPositions.computeIfAbsent(player.getUuid(), k -> new HashMap<>()).put(originKey, pos);
             // Update last default dimension if applicable
             if (cfg.isDefaultWorld(originKey)) {
                 lastDefaultDimByPlayer.put(player.getUuid(), originKey);
             }
             if (cfg.debugMode) {
                 MultiWorldPositions.LOGGER.debug("[MWP] Captured origin from cache for {} in {}: {}",
-                        player.getName().getString(), originKey, lk.pos);
+                        player.getName().getString(), originKey, pos);
             }
             // Do not write to disk here; caller will handle savePlayerData at a sensible time
         }
@@ -14,7 +14,11 @@ public final class SafeLocationFinder {
 
     public static PositionData findSafe(ServerPlayerEntity player, String targetDim, PositionData desired) {
         // After a successful cross-dimension teleport, the player's world is already the target.
-        ServerWorld world = player.getServerWorld();
+        return findSafe(player.getServerWorld(), desired);
+    }
+
+    /** Same search in a given world, e.g. to work out an arrival spot before the player is moved there. */
+    public static PositionData findSafe(ServerWorld world, PositionData desired) {
         int cx = (int) Math.floor(desired.x);
         int cy = (int) Math.floor(desired.y);
         int cz = (int) Math.floor(desired.z);
@@ -23,21 +27,18 @@ public final class SafeLocationFinder {
         int minY = world.getBottomY();
         int maxY = minY + world.getDimension().logicalHeight();
 
-        for (int r = 0; r <= maxRadius; r++) {
-            for (int dx = -r; dx <= r; dx++) {
-                for (int dz = -r; dz <= r; dz++) {
-                    int x = cx + dx;
-                    int z = cz + dz;
-                    int fromY = Math.max(minY, cy - 12);
-                    int toY   = Math.min(maxY - 2, cy + 12);
-                    for (int y = fromY; y <= toY; y++) {
-                        if (isTwoTallAirWithSolidFloor(world, x, y, z)) {
-                            return new PositionData(x + 0.5, y, z + 0.5, desired.yaw, desired.pitch);
-                        }
-                    }
+        int fromY = Math.max(minY, cy - 12);
+        int toY   = Math.min(maxY - 2, cy + 12);
+        // Rings outward: inner columns are checked once, and the closest ring still wins
+        PositionData found = RingSearch.firstOutward(cx, cz, maxRadius, (x, z) -> {
+            for (int y = fromY; y <= toY; y++) {
+                if (isTwoTallAirWithSolidFloor(world, x, y, z)) {
+                    return new PositionData(x + 0.5, y, z + 0.5, desired.yaw, desired.pitch);
                 }
             }
-        }
+            return null;
+        });
+        if (found != null) return found;
         // Fallback: spawn position
         BlockPos spawn = world.getSpawnPos();
         return new PositionData(spawn.getX() + 0.5, spawn.getY(), spawn.getZ() + 0.5, desired.yaw, desired.pitch);
@@ -56,24 +57,24 @@ public final class SafeLocationFinder {
     }
 
     public static PositionData findSafeNear(ServerPlayerEntity player, String targetDim, PositionData desired, BlockPos prefer) {
-        ServerWorld world = player.getServerWorld();
+        return findSafeNear(player.getServerWorld(), desired, prefer);
+    }
+
+    public static PositionData findSafeNear(ServerWorld world, PositionData desired, BlockPos prefer) {
         int cx = prefer.getX();
         int cy = prefer.getY();
         int cz = prefer.getZ();
         // Search a compact area around the preferred portal cell first
-        for (int r = 0; r <= 4; r++) {
-            for (int dx = -r; dx <= r; dx++) {
-                for (int dz = -r; dz <= r; dz++) {
-                    for (int dy = -2; dy <= 2; dy++) {
-                        int x = cx + dx, y = cy + dy, z = cz + dz;
-                        if (isTwoTallAirWithSolidFloor(world, x, y, z)) {
-                            return new PositionData(x + 0.5, y, z + 0.5, desired.yaw, desired.pitch);
-                        }
-                    }
+        PositionData found = RingSearch.firstOutward(cx, cz, 4, (x, z) -> {
+            for (int dy = -2; dy <= 2; dy++) {
+                if (isTwoTallAirWithSolidFloor(world, x, cy + dy, z)) {
+                    return new PositionData(x + 0.5, cy + dy, z + 0.5, desired.yaw, desired.pitch);
                 }
             }
-        }
+            return null;
+        });
+        if (found != null) return found;
         // Fallback to the generic wide search
-        return findSafe(player, targetDim, desired);
+        return findSafe(world, desired);
     }
 }
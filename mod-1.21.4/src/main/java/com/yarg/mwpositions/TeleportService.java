@@ -2,6 +2,8 @@ package com.yarg.mwpositions;
 
 import net.minecraft.server.network.ServerPlayerEntity;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Abstraction for cross-dimension teleport. Implementations can integrate with FabricDimensions
  * or server-specific teleport helpers. The default is a logging-only implementation.
@@ -15,4 +17,62 @@ public interface TeleportService {
      * @return true if the cross-dimension teleport was performed; false otherwise
      */
     boolean teleport(ServerPlayerEntity player, String targetDimKey);
+
+    /**
+     * Teleport the player straight to a position in the target dimension. Implementations that can
+     * move the player there in one step should override this; the default hops first, then places.
+     *
+     * @return true if the player was moved; false otherwise
+     */
+    default boolean teleport(ServerPlayerEntity player, String targetDimKey, PositionData pos) {
+        if (!teleport(player, targetDimKey)) return false;
+        player.networkHandler.requestTeleport(pos.x, pos.y, pos.z, pos.yaw, pos.pitch);
+        return true;
+    }
+
+    /**
+     * Teleport that may finish later, e.g. once a proxy has handed the player over or a world loaded on
+     * demand is ready. Integrations that cannot finish inside the call override this; the future may
+     * complete on any thread (callers continue on the server thread, see MultiWorldPositions.teleportAsync).
+     * The default adapts the synchronous methods above and completes right away.
+     *
+     * @param pos  where to arrive, or null to keep the player's coordinates (like teleport(player, targetDimKey))
+     * @return the outcome; it should not complete exceptionally, report failures through Result.failed
+     */
+    default CompletableFuture<Result> teleportAsync(ServerPlayerEntity player, String targetDimKey, PositionData pos) {
+        boolean moved = (pos != null) ? teleport(player, targetDimKey, pos) : teleport(player, targetDimKey);
+        if (!moved) return CompletableFuture.completedFuture(Result.failed("teleport to " + targetDimKey + " was not performed"));
+        return CompletableFuture.completedFuture(Result.moved(targetDimKey,
+                new PositionData(player.getX(), player.getY(), player.getZ(), player.getYaw(), player.getPitch())));
+    }
+
+    /** Outcome of teleportAsync: where the player was sent, or why the move did not happen. */
+    final class Result {
+        public final boolean success;
+        /** Target dimension and position of a successful move; null on failure. */
+        public final String dim;
+        public final PositionData pos;
+        /** Why the move failed; null on success. */
+        public final String failure;
+
+        private Result(boolean success, String dim, PositionData pos, String failure) {
+            this.success = success;
+            this.dim = dim;
+            this.pos = pos;
+            this.failure = failure;
+        }
+
+        public static Result moved(String dim, PositionData pos) {
+            return new Result(true, dim, pos, null);
+        }
+
+        public static Result failed(String reason) {
+            return new Result(false, null, null, reason);
+        }
+
+        @Override
+        public String toString() {
+            return success ? "moved to " + dim + " at " + pos : "failed: " + failure;
+        }
+    }
 }
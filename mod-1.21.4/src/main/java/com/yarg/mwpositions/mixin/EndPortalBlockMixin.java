@@ -0,0 +1,27 @@
+package com.yarg.mwpositions.mixin;
+
+import com.yarg.mwpositions.PortalKind;
+import com.yarg.mwpositions.PortalRedirect;
+import net.minecraft.block.EndPortalBlock;
+import net.minecraft.entity.Entity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.TeleportTarget;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * With portals handled by vanilla ({@code enablePortals} off), points a group world's End portal
+ * straight at the group's linked world instead of the vanilla End.
+ */
+@Mixin(EndPortalBlock.class)
+public abstract class EndPortalBlockMixin {
+    @Inject(method = "createTeleportTarget", at = @At("HEAD"), cancellable = true)
+    private void mwp$redirectToGroupWorld(ServerWorld world, Entity entity, BlockPos pos, CallbackInfoReturnable<TeleportTarget> cir) {
+        ServerWorld dest = PortalRedirect.destinationFor(world, entity, PortalKind.END);
+        if (dest == null) return;
+        cir.setReturnValue(PortalRedirect.departing(entity, PortalRedirect.endTarget(world, dest, entity)));
+    }
+}
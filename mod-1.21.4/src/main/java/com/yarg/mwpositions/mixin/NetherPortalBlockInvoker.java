@@ -0,0 +1,20 @@
+package com.yarg.mwpositions.mixin;
+
+import net.minecraft.block.NetherPortalBlock;
+import net.minecraft.entity.Entity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.TeleportTarget;
+import net.minecraft.world.border.WorldBorder;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+/**
+ * Exposes vanilla's exit-portal lookup/creation so redirected trips reuse the portal forcer as-is.
+ */
+@Mixin(NetherPortalBlock.class)
+public interface NetherPortalBlockInvoker {
+    @Invoker("getOrCreateExitPortalTarget")
+    TeleportTarget mwp$getOrCreateExitPortalTarget(ServerWorld world, Entity entity, BlockPos pos, BlockPos scaledPos,
+                                                   boolean inNether, WorldBorder worldBorder);
+}
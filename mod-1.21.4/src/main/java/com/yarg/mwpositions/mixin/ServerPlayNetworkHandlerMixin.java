@@ -0,0 +1,26 @@
+package com.yarg.mwpositions.mixin;
+
+import com.yarg.mwpositions.MultiWorldPositions;
+import com.yarg.mwpositions.PositionStorage;
+import net.minecraft.network.packet.c2s.play.PlayerMoveC2SPacket;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Feeds accepted movement packets into the last-known position cache instead of polling every tick.
+ */
+@Mixin(ServerPlayNetworkHandler.class)
+public abstract class ServerPlayNetworkHandlerMixin {
+    @Shadow public ServerPlayerEntity player;
+
+    @Inject(method = "onPlayerMove", at = @At("TAIL"))
+    private void mwp$afterPlayerMove(PlayerMoveC2SPacket packet, CallbackInfo ci) {
+        PositionStorage storage = MultiWorldPositions.getPositionStorage();
+        if (storage != null) storage.onPlayerMoved(player);
+    }
+}
@@ -0,0 +1,34 @@
+package com.yarg.mwpositions;
+
+import net.minecraft.util.math.BlockPos;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PortalBuilderTest {
+    @Test
+    void equidistantPortalsBreakTiesByXThenZThenY() {
+        BlockPos near = new BlockPos(0, 64, 0);
+        Comparator<BlockPos> order = PortalBuilder.portalOrder(near);
+        // All at distance 1 from 'near'
+        List<BlockPos> sorted = Stream.of(
+                new BlockPos(1, 64, 0), new BlockPos(0, 65, 0), new BlockPos(0, 64, 1),
+                new BlockPos(0, 63, 0), new BlockPos(0, 64, -1), new BlockPos(-1, 64, 0)
+        ).sorted(order).toList();
+        assertEquals(List.of(
+                new BlockPos(-1, 64, 0), new BlockPos(0, 64, -1), new BlockPos(0, 63, 0),
+                new BlockPos(0, 65, 0), new BlockPos(0, 64, 1), new BlockPos(1, 64, 0)
+        ), sorted);
+    }
+
+    @Test
+    void closerPortalWinsOverTieBreak() {
+        BlockPos near = new BlockPos(10, 64, 10);
+        Comparator<BlockPos> order = PortalBuilder.portalOrder(near);
+        assertEquals(-1, Integer.signum(order.compare(new BlockPos(12, 64, 10), new BlockPos(7, 64, 10))));
+    }
+}
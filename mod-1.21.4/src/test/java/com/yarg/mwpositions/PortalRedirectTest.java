@@ -0,0 +1,32 @@
+package com.yarg.mwpositions;
+
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.TeleportTarget;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class PortalRedirectTest {
+    private static TeleportTarget target(double x, double y, double z) {
+        return new TeleportTarget(null, new Vec3d(x, y, z), Vec3d.ZERO, 0f, 0f, TeleportTarget.NO_OP);
+    }
+
+    @Test
+    void redirectedPortalTripArrivesAtThePortalExit() {
+        PlayerSession s = new PlayerSession();
+        TeleportTarget exit = target(8.5, 70, -3.5);
+        assertSame(exit, PortalRedirect.departing(s, 100, exit));
+        // The world change happens in the same tick, right after the portal built its target
+        TeleportTarget arrival = DimensionChangeListener.arrivalFor(s, 100, exit,
+                () -> fail("a redirected portal trip must not be restored"));
+        assertSame(exit, arrival);
+    }
+
+    @Test
+    void unmarkedMoveGetsThePlannedArrival() {
+        PlayerSession s = new PlayerSession();
+        TeleportTarget planned = target(0.5, 64, 0.5);
+        assertSame(planned, DimensionChangeListener.arrivalFor(s, 100, target(8.5, 70, -3.5), () -> planned));
+    }
+}
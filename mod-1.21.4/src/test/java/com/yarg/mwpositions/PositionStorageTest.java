@@ -0,0 +1,64 @@
+package com.yarg.mwpositions;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.entity.player.ItemCooldownManager;
+import net.minecraft.world.World;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PositionStorageTest {
+    private static final int SAMPLES = 100_000;
+    private static final double THRESHOLD = 2.0;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    @Test
+    void movementBelowThresholdKeepsLastSample() {
+        PlayerSession s = new PlayerSession();
+        ItemCooldownManager cooldowns = new ItemCooldownManager();
+        PositionStorage.onMoved(s, World.OVERWORLD, 0, 64, 0, 0f, 0f, 1, THRESHOLD, cooldowns);
+        assertTrue(s.hasLastKnown);
+        assertFalse(s.coolingEnderPearl);
+
+        PositionStorage.onMoved(s, World.OVERWORLD, 1, 64, 1, 0f, 0f, 2, THRESHOLD, cooldowns);
+        assertEquals(0, s.lastX);
+        PositionStorage.onMoved(s, World.OVERWORLD, 2, 64, 1, 0f, 0f, 3, THRESHOLD, cooldowns);
+        assertEquals(2, s.lastX);
+        // A different world always counts as a move
+        PositionStorage.onMoved(s, World.NETHER, 2, 64, 1, 0f, 0f, 4, THRESHOLD, cooldowns);
+        assertEquals(World.NETHER, s.lastWorldKey);
+    }
+
+    @Test
+    void movementSamplingAllocatesNothing() {
+        PlayerSession s = new PlayerSession();
+        ItemCooldownManager cooldowns = new ItemCooldownManager();
+        // Warm up first, so class loading and compilation are not measured
+        move(s, cooldowns, SAMPLES);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        move(s, cooldowns, SAMPLES);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        // Even one object per sample would add up to megabytes here; the slack covers the MXBean itself
+        assertTrue(allocated <= 1024, allocated + " bytes allocated over " + SAMPLES + " samples");
+    }
+
+    // Alternates moves past and within the threshold, so both the sampled and the skipped path run
+    private static void move(PlayerSession s, ItemCooldownManager cooldowns, int n) {
+        for (int i = 0; i < n; i++) {
+            s.markPortalContact(PortalKind.NETHER, i);
+            PositionStorage.onMoved(s, World.OVERWORLD, (i >> 1) * THRESHOLD * 2, 64, 0, i, 0f, i, THRESHOLD, cooldowns);
+        }
+    }
+}
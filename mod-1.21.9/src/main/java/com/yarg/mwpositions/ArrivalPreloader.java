@@ -0,0 +1,242 @@
+package com.yarg.mwpositions;
+
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ChunkTicketType;
+import net.minecraft.server.world.ServerChunkManager;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads the chunks around a player's arrival spot before they are moved there. A short-lived portal
+ * ticket makes the chunk system load the area in the background; the move runs once every chunk the
+ * safe-spot search can touch is loaded, so the arrival tick reads blocks from memory instead of
+ * loading (or generating) chunks on the server thread. All methods run on the server thread.
+ */
+public final class ArrivalPreloader {
+    // SafeLocationFinder.findSafe scans up to 24 blocks around the arrival spot
+    private static final int SEARCH_RADIUS = 24;
+    // Full chunks within 2 chunks of the center cover the search square
+    private static final int TICKET_RADIUS = 2;
+    // Portal tickets expire after 300 ticks
+    private static final int TICKET_TICKS = 300;
+    // Move anyway after 2s; the arrival then loads whatever is still missing itself
+    private static final int MAX_WAIT_TICKS = 40;
+
+    private static final class Load {
+        final ServerWorld world;
+        final int minCx, minCz, maxCx, maxCz;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        int ticksLeft = MAX_WAIT_TICKS;
+
+        Load(ServerWorld world, BlockPos pos) {
+            this.world = world;
+            this.minCx = (pos.getX() - SEARCH_RADIUS) >> 4;
+            this.maxCx = (pos.getX() + SEARCH_RADIUS) >> 4;
+            this.minCz = (pos.getZ() - SEARCH_RADIUS) >> 4;
+            this.maxCz = (pos.getZ() + SEARCH_RADIUS) >> 4;
+        }
+
+        boolean loaded() {
+            ServerChunkManager chunks = world.getChunkManager();
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                for (int cz = minCz; cz <= maxCz; cz++) {
+                    if (!chunks.isChunkLoaded(cx, cz)) return false;
+                }
+            }
+            return true;
+        }
+
+        int missing() {
+            ServerChunkManager chunks = world.getChunkManager();
+            int n = 0;
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                for (int cz = minCz; cz <= maxCz; cz++) {
+                    if (!chunks.isChunkLoaded(cx, cz)) n++;
+                }
+            }
+            return n;
+        }
+    }
+
+    private static final class Warm {
+        final ServerWorld world;
+        final ChunkPos center;
+        final String key;
+
+        Warm(ServerWorld world, ChunkPos center, String key) {
+            this.world = world;
+            this.center = center;
+            this.key = key;
+        }
+    }
+
+    // One load per destination chunk; everyone heading there shares it
+    private final Map<String, Load> loads = new HashMap<>();
+    private final Set<UUID> pending = new HashSet<>();
+    // Speculative loads for players likely to move soon, and how many players hold each area's ticket
+    private final Map<UUID, Warm> warming = new HashMap<>();
+    private final Map<String, Integer> warmRefs = new HashMap<>();
+    // Server tick at which a move last ticketed each area; warm-ups leave those tickets to expire
+    private final Map<String, Long> moveTickets = new HashMap<>();
+
+    /** Tickets the area around pos for a move and completes once it is loaded (already complete if it is). */
+    public CompletableFuture<Void> preload(ServerWorld world, BlockPos pos) {
+        String key = key(world, new ChunkPos(pos));
+        long now = world.getServer().getTicks();
+        if (moveTickets.put(key, now) == null) moveTickets.values().removeIf(t -> now - t >= TICKET_TICKS);
+        return load(world, pos);
+    }
+
+    private CompletableFuture<Void> load(ServerWorld world, BlockPos pos) {
+        ChunkPos center = new ChunkPos(pos);
+        String key = key(world, center);
+        Load load = loads.get(key);
+        if (load != null) return load.done;
+        world.getChunkManager().addTicket(ChunkTicketType.PORTAL, center, TICKET_RADIUS);
+        load = new Load(world, pos);
+        if (load.loaded()) {
+            load.done.complete(null);
+        } else {
+            loads.put(key, load);
+        }
+        return load.done;
+    }
+
+    /**
+     * Starts loading the area around pos for a player who will probably move there soon (e.g. while warming
+     * up in a portal), replacing their previous warm-up. Returns true if this started a new warm-up.
+     */
+    public boolean warm(ServerPlayerEntity player, String targetDim, PositionData pos) {
+        ServerWorld world = worldFor(player, targetDim);
+        if (world == null) return false;
+        BlockPos bp = BlockPos.ofFloored(pos.x, pos.y, pos.z);
+        ChunkPos center = new ChunkPos(bp);
+        String key = key(world, center);
+        Warm prev = warming.get(player.getUuid());
+        if (prev != null && prev.key.equals(key)) return false;
+        if (prev != null) {
+            release(prev);
+            MultiWorldPositions.getReturnPortalResolver().cancelPrefetch(player.getUuid());
+        }
+        warming.put(player.getUuid(), new Warm(world, center, key));
+        warmRefs.merge(key, 1, Integer::sum);
+        load(world, bp);
+        return true;
+    }
+
+    /**
+     * Drops the player's warm-up, with the return-portal site prefetched for it; a ticket is removed once
+     * no other player warms the same area and no move has ticketed it.
+     */
+    public void cancelWarm(UUID playerId) {
+        Warm w = warming.remove(playerId);
+        if (w != null) release(w);
+        MultiWorldPositions.getReturnPortalResolver().cancelPrefetch(playerId);
+    }
+
+    /** True while the player has a warm-up running. */
+    public boolean isWarming(UUID playerId) {
+        return warming.containsKey(playerId);
+    }
+
+    /** True once the area around pos in targetDim is loaded; starts loading it otherwise. */
+    public boolean ready(ServerPlayerEntity player, String targetDim, PositionData pos) {
+        ServerWorld world = worldFor(player, targetDim);
+        return world == null || preload(world, BlockPos.ofFloored(pos.x, pos.y, pos.z)).isDone();
+    }
+
+    /**
+     * Runs 'move' once the chunks around pos in targetDim are loaded (right away if they already are).
+     * Returns false if the player already has a move waiting.
+     */
+    public boolean preloadThen(ServerPlayerEntity player, String targetDim, PositionData pos, Runnable move) {
+        ServerWorld world = worldFor(player, targetDim);
+        if (world == null) {
+            // Let the teleport itself report the missing world
+            move.run();
+            return true;
+        }
+        UUID id = player.getUuid();
+        if (!pending.add(id)) return false;
+        preload(world, BlockPos.ofFloored(pos.x, pos.y, pos.z)).whenComplete((v, t) -> {
+            pending.remove(id);
+            if (!player.isDisconnected()) move.run();
+        });
+        return true;
+    }
+
+    /**
+     * Where a move into targetDim is expected to land: the restore/redirect target, or the world spawn
+     * for hub worlds. Null for same-world moves.
+     */
+    DimensionChangeListener.Arrival arrivalFor(ServerPlayerEntity player, String targetDim) {
+        if (player.getEntityWorld().getRegistryKey().getValue().toString().equals(targetDim)) return null;
+        DimensionChangeListener.Arrival arrival = DimensionChangeListener.expectedArrival(player, targetDim);
+        if (arrival != null) return arrival;
+        ServerWorld world = worldFor(player, targetDim);
+        BlockPos sp = world != null ? world.getSpawnPoint().getPos() : player.getBlockPos();
+        return new DimensionChangeListener.Arrival(targetDim, new PositionData(sp.getX() + 0.5, sp.getY(), sp.getZ() + 0.5, 0f, 0f), false, false);
+    }
+
+    /** Chunks around pos in targetDim that a move there would still have to load. */
+    public int missingChunks(ServerPlayerEntity player, String targetDim, PositionData pos) {
+        ServerWorld world = worldFor(player, targetDim);
+        return world == null ? 0 : new Load(world, BlockPos.ofFloored(pos.x, pos.y, pos.z)).missing();
+    }
+
+    /** True while a move of this player waits for its destination to load. */
+    public boolean isPending(UUID playerId) {
+        return pending.contains(playerId);
+    }
+
+    /** Completes loads whose area is ready, or that waited too long. */
+    public void tick() {
+        if (loads.isEmpty()) return;
+        List<Load> finished = new ArrayList<>();
+        for (Iterator<Load> it = loads.values().iterator(); it.hasNext(); ) {
+            Load load = it.next();
+            if (load.loaded() || --load.ticksLeft <= 0) {
+                it.remove();
+                finished.add(load);
+            }
+        }
+        // Completion runs the waiting moves, which may start new loads
+        for (Load load : finished) load.done.complete(null);
+    }
+
+    private void release(Warm w) {
+        int left = warmRefs.merge(w.key, -1, Integer::sum);
+        if (left > 0) return;
+        warmRefs.remove(w.key);
+        // A move into the same area shares the ticket; pulling it would unload the area under the move
+        Long moved = moveTickets.get(w.key);
+        if (moved != null && w.world.getServer().getTicks() - moved < TICKET_TICKS) return;
+        w.world.getChunkManager().removeTicket(ChunkTicketType.PORTAL, w.center, TICKET_RADIUS);
+    }
+
+    private static String key(ServerWorld world, ChunkPos center) {
+        return world.getRegistryKey().getValue() + "@" + center.x + "," + center.z;
+    }
+
+    private static ServerWorld worldFor(ServerPlayerEntity player, String dimKey) {
+        try {
+            return player.getCommandSource().getServer().getWorld(RegistryKey.of(RegistryKeys.WORLD, Identifier.of(dimKey)));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
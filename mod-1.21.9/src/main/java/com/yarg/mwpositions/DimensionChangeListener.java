@@ -6,19 +6,21 @@ import net.minecraft.registry.RegistryKeys;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.TeleportTarget;
 import net.minecraft.world.World;
 
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * 1.21.9 overlay: adjust player/world accessors and logging names.
  */
 public class DimensionChangeListener {
 
-    private static final long REDIRECT_DEBOUNCE_MS = 400L;
-    private static final Map<UUID, Long> lastRedirectAt = new ConcurrentHashMap<>();
+    // Once a move started by this mod has landed, redirects wait this many server ticks, so a world change
+    // right behind it cannot bounce the player on (a fixed number of ticks, however long they take)
+    private static final int SETTLE_TICKS = 8;
 
     public static void register() {
         ServerPlayerEvents.AFTER_RESPAWN.register((oldPlayer, newPlayer, alive) -> {
@@ -67,101 +69,170 @@ public class DimensionChangeListener {
         });
     }
 
-    private static void handleDimensionChange(ServerPlayerEntity oldPlayer, ServerPlayerEntity newPlayer) {
-        PositionStorage storage = MultiWorldPositions.getPositionStorage();
+    public static void handleAfterWorldChange(ServerPlayerEntity player, ServerWorld origin, ServerWorld destination) {
+        handleWithKeys(player,
+                origin.getRegistryKey().getValue().toString(),
+                destination.getRegistryKey().getValue().toString());
+    }
+
+    /**
+     * Marks a move this mod is about to start (or, from the world-change handler, has just made): the world
+     * change it causes is not restored or redirected. Call right before the move, on the server thread.
+     */
+    static void beginTransfer(ServerPlayerEntity player) {
+        PlayerSession.of(player).beginTransfer(player.getCommandSource().getServer().getTicks());
+    }
+
+    /**
+     * A TeleportService move completed (see MultiWorldPositions.teleportAsync). One that is still in flight
+     * landed without a world change and settles now; a failed one never happens.
+     */
+    static void completeTransfer(ServerPlayerEntity player, boolean success) {
+        PlayerSession s = PlayerSession.of(player);
+        long now = player.getCommandSource().getServer().getTicks();
+        if (s.transferState(now) != PlayerSession.Transfer.IN_FLIGHT) return;
+        if (success) s.settleTransfer(now, SETTLE_TICKS);
+        else s.cancelTransfer();
+    }
+
+    /**
+     * Called right before a player is moved to another world: replaces the move's target with where the
+     * restore/redirect logic would put the player afterwards, so they arrive there directly instead of
+     * landing at the vanilla coordinates and being moved again. Moves the world-change handler treats
+     * specially (portal trips, End exit, portal correction) keep their target.
+     */
+    public static TeleportTarget resolveArrival(ServerPlayerEntity player, TeleportTarget target) {
         ModConfig config = MultiWorldPositions.getConfig();
+        if (config == null || MultiWorldPositions.getPositionStorage() == null) return target;
+        ServerWorld from = player.getEntityWorld();
+        ServerWorld to = target.world();
+        if (to == null || to == from) return target;
+        return arrivalFor(PlayerSession.of(player), player.getCommandSource().getServer().getTicks(), target,
+                () -> plannedArrival(player, config, from, to, target));
+    }
 
-        String oldDimension = oldPlayer.getEntityWorld().getRegistryKey().getValue().toString();
-        String newDimension = newPlayer.getEntityWorld().getRegistryKey().getValue().toString();
+    /**
+     * Target a move into another world ends with: one this mod marked as its own (portal trip, redirect,
+     * queued transfer) keeps its target, as that is already final; any other gets the planned one.
+     */
+    static TeleportTarget arrivalFor(PlayerSession session, long now, TeleportTarget target, Supplier<TeleportTarget> planned) {
+        if (session.transferState(now) == PlayerSession.Transfer.IN_FLIGHT) return target;
+        return planned.get();
+    }
 
-        if (!config.isHubWorld(oldDimension)) {
-            storage.savePosition(oldPlayer);
-            if (config.debugMode) {
-                MultiWorldPositions.LOGGER.debug("Saved position in old dimension: {}", oldDimension);
-            }
-        } else if (config.debugMode) {
-            MultiWorldPositions.LOGGER.debug("Skipped saving position (hub world): {}", oldDimension);
+    // Where the restore/redirect logic would put the player; the original target when it leaves the move alone
+    private static TeleportTarget plannedArrival(ServerPlayerEntity player, ModConfig config, ServerWorld from, ServerWorld to, TeleportTarget target) {
+        String oldDimension = from.getRegistryKey().getValue().toString();
+        String newDimension = to.getRegistryKey().getValue().toString();
+        if (handledOnWorldChange(player, config, oldDimension, newDimension)) return target;
+
+        TransferPipeline pipeline = MultiWorldPositions.getTransferPipeline();
+        Arrival plan = pipeline.stage(player, TransferPipeline.Stage.RESOLVE, () -> planArrival(player, oldDimension, newDimension));
+        if (plan == null) return target;
+        ServerWorld world = worldFor(player, plan.dim);
+        if (world == null) return target;
+        PositionData safe = pipeline.stage(player, TransferPipeline.Stage.FIND_SAFE_SPOT, () -> TeleportPlacement.resolveExactlyOrNearby(world, plan.pos));
+
+        beginTransfer(player);
+        if (plan.redirect) {
+            MultiWorldPositions.LOGGER.info("Redirected {} to last default dimension {} and restored position",
+                    player.getName().getString(), plan.dim);
+        } else {
+            MultiWorldPositions.LOGGER.info(plan.fromSave ? "Restored position for {} in {}: {}" : "Placed {} at spawn in {}: {}",
+                    player.getName().getString(), plan.dim, safe);
         }
+        player.fallDistance = 0f;
+        return new TeleportTarget(world, new Vec3d(safe.x, safe.y, safe.z), Vec3d.ZERO, safe.yaw, safe.pitch,
+                target.postTeleportTransition());
+    }
 
-        boolean newIsDefault = config.isDefaultWorld(newDimension);
-        boolean cameFromNonDefault = !config.isDefaultWorld(oldDimension);
-        if (newIsDefault && cameFromNonDefault && config.enableCrossDimRedirect) {
-            String lastDefault = storage.getLastDefaultDimension(newPlayer.getUuid());
-            if (lastDefault != null && !lastDefault.equals(newDimension)) {
-                PositionData saved = storage.getPosition(newPlayer.getUuid(), lastDefault);
-                if (saved != null) {
-                    if (debounced(newPlayer.getUuid())) {
-                        if (config.debugMode) {
-                            MultiWorldPositions.LOGGER.debug("Debounced redirect for {}", newPlayer.getName().getString());
-                        }
-                    } else {
-                        boolean success = crossDimTeleport(newPlayer, lastDefault, saved);
-                        if (success) {
-                            lastRedirectAt.put(newPlayer.getUuid(), System.currentTimeMillis());
-                            MultiWorldPositions.LOGGER.info("Redirected {} to last default dimension {} and restored position",
-                                    newPlayer.getName().getString(), lastDefault);
-                            storage.savePlayerData(newPlayer.getUuid());
-                            return;
-                        } else if (config.failOpenOnTeleportError) {
-                            MultiWorldPositions.LOGGER.warn("Cross-dimension redirect failed or not available; falling back to in-dimension restore for {}",
-                                    newPlayer.getName().getString());
-                        }
-                    }
-                } else if (config.debugMode) {
-                    MultiWorldPositions.LOGGER.debug("No saved position for last default {}. Skipping redirect.", lastDefault);
-                }
+    private static void handleWithKeys(ServerPlayerEntity player, String oldDimension, String newDimension) {
+        PositionStorage storage = MultiWorldPositions.getPositionStorage();
+        ModConfig config = MultiWorldPositions.getConfig();
+        TransferPipeline pipeline = MultiWorldPositions.getTransferPipeline();
+
+        // Arrival of a move started by this mod (portal trip, redirect, resolved arrival): it is already
+        // where it should be, so persist and let it settle instead of restoring or redirecting again
+        PlayerSession session = PlayerSession.of(player);
+        long now = player.getCommandSource().getServer().getTicks();
+        if (session.transferState(now) == PlayerSession.Transfer.IN_FLIGHT) {
+            session.settleTransfer(now, SETTLE_TICKS);
+            pipeline.stage(player, TransferPipeline.Stage.PERSIST, () -> storage.savePlayerData(player.getUuid()));
+            if (MultiWorldPositions.getConfig().debugMode) {
+                MultiWorldPositions.LOGGER.debug("[MWP] Skipped restore after portal-driven teleport for {}", player.getName().getString());
             }
+            return;
         }
 
-        if (!config.isHubWorld(newDimension)) {
-            PositionData savedPos = storage.getPosition(newPlayer.getUuid(), newDimension);
-            if (savedPos != null) {
-                TeleportPlacement.placeExactlyOrNearby(newPlayer, newDimension, savedPos);
-                MultiWorldPositions.LOGGER.info("Restored position for {} in {}: {}",
-                        newPlayer.getName().getString(), newDimension, savedPos);
-            } else {
-                WorldGroup g = MultiWorldPositions.getConfig().findGroupByMember(newDimension);
-                PositionData target;
-                if (g != null && g.spawnX != null && g.spawnY != null && g.spawnZ != null) {
-                    target = new PositionData(g.spawnX, g.spawnY, g.spawnZ,
-                            g.spawnYaw != null ? g.spawnYaw : newPlayer.getYaw(),
-                            g.spawnPitch != null ? g.spawnPitch : newPlayer.getPitch());
-                } else {
-                    ServerWorld tw = newPlayer.getEntityWorld();
-                    var sp = tw.getSpawnPoint().getPos();
-                    target = new PositionData(sp.getX() + 0.5, sp.getY(), sp.getZ() + 0.5, newPlayer.getYaw(), newPlayer.getPitch());
+        Arrival plan = pipeline.stage(player, TransferPipeline.Stage.RESOLVE, () -> planArrival(player, oldDimension, newDimension));
+        if (plan != null && plan.redirect) {
+            Arrival redirect = plan;
+            // The redirect may complete on a later tick; the in-dimension fallback continues from there
+            pipeline.stage(player, TransferPipeline.Stage.TELEPORT, () -> crossDimTeleport(player, redirect.dim, redirect.pos)).thenAccept(result -> {
+                if (player.isDisconnected()) return;
+                if (result.success) {
+                    MultiWorldPositions.LOGGER.info("Redirected {} to last default dimension {} and restored position",
+                            player.getName().getString(), redirect.dim);
+                    pipeline.stage(player, TransferPipeline.Stage.PERSIST, () -> storage.savePlayerData(player.getUuid()));
+                    return;
+                } else if (config.failOpenOnTeleportError) {
+                    MultiWorldPositions.LOGGER.warn("Cross-dimension redirect failed or not available ({}); falling back to in-dimension restore for {}",
+                            result.failure, player.getName().getString());
                 }
-                TeleportPlacement.placeExactlyOrNearby(newPlayer, newDimension, target);
-                MultiWorldPositions.LOGGER.info("Placed {} at spawn in {}: {}",
-                        newPlayer.getName().getString(), newDimension, target);
-            }
+                // Moved elsewhere in the meantime: nothing to restore here
+                if (!newDimension.equals(player.getEntityWorld().getRegistryKey().getValue().toString())) return;
+                restoreInDimension(player, newDimension, pipeline.stage(player, TransferPipeline.Stage.RESOLVE, () -> planRestore(player, newDimension)));
+            });
+            return;
+        }
+        restoreInDimension(player, newDimension, plan);
+    }
+
+    // Places the player at the planned spot in the world they are in (if any), then persists
+    private static void restoreInDimension(ServerPlayerEntity player, String newDimension, Arrival plan) {
+        TransferPipeline pipeline = MultiWorldPositions.getTransferPipeline();
+        if (plan != null) {
+            pipeline.stage(player, TransferPipeline.Stage.PLACE, () -> TeleportPlacement.placeExactlyOrNearby(player, newDimension, plan.pos));
+            MultiWorldPositions.LOGGER.info(plan.fromSave ? "Restored position for {} in {}: {}" : "Placed {} at spawn in {}: {}",
+                    player.getName().getString(), newDimension, plan.pos);
         } else {
             MultiWorldPositions.LOGGER.info("Skipped position restore for {} (hub world: {})",
-                    newPlayer.getName().getString(), newDimension);
+                    player.getName().getString(), newDimension);
         }
 
-        storage.savePlayerData(newPlayer.getUuid());
+        pipeline.stage(player, TransferPipeline.Stage.PERSIST, () -> MultiWorldPositions.getPositionStorage().savePlayerData(player.getUuid()));
     }
 
-    public static void handleAfterWorldChange(ServerPlayerEntity player, ServerWorld origin, ServerWorld destination) {
-        handleWithKeys(player,
-                origin.getRegistryKey().getValue().toString(),
-                destination.getRegistryKey().getValue().toString());
+    static final class Arrival {
+        final String dim;
+        final PositionData pos;
+        final boolean redirect;
+        final boolean fromSave;
+
+        Arrival(String dim, PositionData pos, boolean redirect, boolean fromSave) {
+            this.dim = dim;
+            this.pos = pos;
+            this.redirect = redirect;
+            this.fromSave = fromSave;
+        }
     }
 
-    private static void handleWithKeys(ServerPlayerEntity player, String oldDimension, String newDimension) {
+    /** Where a player about to be moved into targetDim will end up; null for hub worlds and same-world moves. */
+    static Arrival expectedArrival(ServerPlayerEntity player, String targetDim) {
+        String fromDim = player.getEntityWorld().getRegistryKey().getValue().toString();
+        if (fromDim.equals(targetDim)) return null;
+        return planArrival(player, fromDim, targetDim);
+    }
+
+    /**
+     * Where a player entering newDimension should end up: the saved spot in their last default world
+     * (redirect), else the saved spot in newDimension, else its group or world spawn. Null for hub worlds.
+     */
+    private static Arrival planArrival(ServerPlayerEntity player, String oldDimension, String newDimension) {
         PositionStorage storage = MultiWorldPositions.getPositionStorage();
         ModConfig config = MultiWorldPositions.getConfig();
 
-        if (PortalLinkService.consumePortalTransfer(player.getUuid())) {
-            MultiWorldPositions.getPositionStorage().savePlayerData(player.getUuid());
-            if (MultiWorldPositions.getConfig().debugMode) {
-                MultiWorldPositions.LOGGER.debug("[MWP] Skipped restore after portal-driven teleport for {}", player.getName().getString());
-            }
-            return;
-        }
-
-        if (MultiWorldPositions.getConfig().findGroupByMember(newDimension) == null) {
+        if (config.findGroupByMember(newDimension) == null) {
             boolean newIsDefault = config.isDefaultWorld(newDimension);
             boolean cameFromNonDefault = !config.isDefaultWorld(oldDimension);
             if (newIsDefault && cameFromNonDefault && config.enableCrossDimRedirect) {
@@ -169,22 +240,11 @@ public class DimensionChangeListener {
                 if (lastDefault != null && !lastDefault.equals(newDimension)) {
                     PositionData saved = storage.getPosition(player.getUuid(), lastDefault);
                     if (saved != null) {
-                        if (debounced(player.getUuid())) {
-                            if (config.debugMode) {
-                                MultiWorldPositions.LOGGER.debug("Debounced redirect for {}", player.getName().getString());
-                            }
-                        } else {
-                            boolean success = crossDimTeleport(player, lastDefault, saved);
-                            if (success) {
-                                lastRedirectAt.put(player.getUuid(), System.currentTimeMillis());
-                                MultiWorldPositions.LOGGER.info("Redirected {} to last default dimension {} and restored position",
-                                        player.getName().getString(), lastDefault);
-                                storage.savePlayerData(player.getUuid());
-                                return;
-                            } else if (config.failOpenOnTeleportError) {
-                                MultiWorldPositions.LOGGER.warn("Cross-dimension redirect failed or not available; falling back to in-dimension restore for {}",
-                                        player.getName().getString());
-                            }
+                        if (!settling(player)) {
+                            return new Arrival(lastDefault, saved, true, true);
+                        }
+                        if (config.debugMode) {
+                            MultiWorldPositions.LOGGER.debug("Skipped redirect for {} (previous move still settling)", player.getName().getString());
                         }
                     } else if (config.debugMode) {
                         MultiWorldPositions.LOGGER.debug("No saved position for last default {}. Skipping redirect.", lastDefault);
@@ -192,95 +252,83 @@ public class DimensionChangeListener {
                 }
             }
         }
+        return planRestore(player, newDimension);
+    }
 
-        if (!config.isHubWorld(newDimension)) {
-            PositionData savedPos = storage.getPosition(player.getUuid(), newDimension);
-            if (savedPos != null) {
-                TeleportPlacement.placeExactlyOrNearby(player, newDimension, savedPos);
-                MultiWorldPositions.LOGGER.info("Restored position for {} in {}: {}",
-                        player.getName().getString(), newDimension, savedPos);
-            } else {
-                WorldGroup g = MultiWorldPositions.getConfig().findGroupByMember(newDimension);
-                PositionData target;
-                if (g != null && g.spawnX != null && g.spawnY != null && g.spawnZ != null) {
-                    target = new PositionData(g.spawnX, g.spawnY, g.spawnZ,
-                            g.spawnYaw != null ? g.spawnYaw : player.getYaw(),
-                            g.spawnPitch != null ? g.spawnPitch : player.getPitch());
-                } else {
-                    ServerWorld tw = player.getEntityWorld();
-                    var sp = tw.getSpawnPoint().getPos();
-                    target = new PositionData(sp.getX() + 0.5, sp.getY(), sp.getZ() + 0.5, player.getYaw(), player.getPitch());
-                }
-                TeleportPlacement.placeExactlyOrNearby(player, newDimension, target);
-                MultiWorldPositions.LOGGER.info("Placed {} at spawn in {}: {}",
-                        player.getName().getString(), newDimension, target);
-            }
+    private static Arrival planRestore(ServerPlayerEntity player, String dimension) {
+        ModConfig config = MultiWorldPositions.getConfig();
+        if (config.isHubWorld(dimension)) return null;
+        PositionData savedPos = MultiWorldPositions.getPositionStorage().getPosition(player.getUuid(), dimension);
+        if (savedPos != null) return new Arrival(dimension, savedPos, false, true);
+
+        WorldGroup g = config.findGroupByMember(dimension);
+        PositionData target;
+        if (g != null && g.spawnX != null && g.spawnY != null && g.spawnZ != null) {
+            target = new PositionData(g.spawnX, g.spawnY, g.spawnZ,
+                    g.spawnYaw != null ? g.spawnYaw : player.getYaw(),
+                    g.spawnPitch != null ? g.spawnPitch : player.getPitch());
         } else {
-            MultiWorldPositions.LOGGER.info("Skipped position restore for {} (hub world: {})",
-                    player.getName().getString(), newDimension);
+            ServerWorld tw = worldFor(player, dimension);
+            if (tw == null) tw = player.getEntityWorld();
+            var sp = tw.getSpawnPoint().getPos();
+            target = new PositionData(sp.getX() + 0.5, sp.getY(), sp.getZ() + 0.5, player.getYaw(), player.getPitch());
         }
-
-        storage.savePlayerData(player.getUuid());
+        return new Arrival(dimension, target, false, false);
     }
 
-    private static boolean debounced(UUID playerId) {
-        Long last = lastRedirectAt.get(playerId);
-        long now = System.currentTimeMillis();
-        return last != null && (now - last) < REDIRECT_DEBOUNCE_MS;
-    }
-
-    private static PositionData applySafety(ServerPlayerEntity player, PositionData in) {
-        ModConfig cfg = MultiWorldPositions.getConfig();
-        double x = in.x;
-        double y = in.y;
-        double z = in.z;
-        float yaw = in.yaw;
-        float pitch = in.pitch;
-
-        if (cfg.clampYToWorldBounds) {
-            ServerWorld w = player.getEntityWorld();
-            double minY = w.getBottomY();
-            double maxY = w.getBottomY() + w.getDimension().logicalHeight();
-            if (y < minY) y = minY;
-            if (y > maxY) y = maxY;
+    private static boolean handledOnWorldChange(ServerPlayerEntity player, ModConfig cfg, String originKey, String destKey) {
+        if ("minecraft:the_end".equals(originKey) && "minecraft:overworld".equals(destKey)) return true;
+        WorldGroup g = cfg.findGroupByMember(originKey);
+        if (g == null || g.linkPortals == null) return false;
+        PositionStorage storage = MultiWorldPositions.getPositionStorage();
+        if (cfg.enablePortals) {
+            String shouldBe = g.linkPortals.nether ? cfg.nextForPortal(g, originKey, PortalKind.NETHER) : null;
+            return shouldBe != null && !shouldBe.equals(destKey) && cfg.isDefaultWorld(destKey);
+        }
+        if (g.linkPortals.nether && destKey.equals(cfg.nextForPortal(g, originKey, PortalKind.NETHER))
+                && (storage.wasInNetherPortalCell(player.getUuid()) || storage.hadEnderPearlCooldown(player.getUuid()))) {
+            return true;
         }
+        return g.linkPortals.end && destKey.equals(cfg.nextForPortal(g, originKey, PortalKind.END))
+                && storage.wasInEndPortalCell(player.getUuid());
+    }
 
-        if (cfg.maxTeleportDistance >= 0) {
-            double dx = x - player.getX();
-            double dy = y - player.getY();
-            double dz = z - player.getZ();
-            double distSq = dx*dx + dy*dy + dz*dz;
-            if (distSq > (cfg.maxTeleportDistance * cfg.maxTeleportDistance)) {
-                MultiWorldPositions.LOGGER.warn("Skipping large in-dimension move for {} (distance={} > max={})",
-                        player.getName().getString(), Math.sqrt(distSq), cfg.maxTeleportDistance);
-                return new PositionData(player.getX(), player.getY(), player.getZ(), player.getYaw(), player.getPitch());
-            }
+    private static ServerWorld worldFor(ServerPlayerEntity player, String dimKey) {
+        try {
+            return player.getCommandSource().getServer().getWorld(RegistryKey.of(RegistryKeys.WORLD, Identifier.of(dimKey)));
+        } catch (Exception e) {
+            return null;
         }
+    }
 
-        return new PositionData(x, y, z, yaw, pitch);
+    private static boolean settling(ServerPlayerEntity player) {
+        PlayerSession s = PlayerSession.get(player.getUuid());
+        return s != null && s.transferState(player.getCommandSource().getServer().getTicks()) == PlayerSession.Transfer.SETTLING;
     }
 
-    private static boolean crossDimTeleport(ServerPlayerEntity player, String targetDimKey, PositionData pos) {
+    private static CompletableFuture<TeleportService.Result> crossDimTeleport(ServerPlayerEntity player, String targetDimKey, PositionData pos) {
+        ServerWorld targetWorld;
         try {
             Identifier id = Identifier.of(targetDimKey);
             RegistryKey<World> key = RegistryKey.of(RegistryKeys.WORLD, id);
-            ServerWorld targetWorld = player.getCommandSource().getServer().getWorld(key);
+            targetWorld = player.getCommandSource().getServer().getWorld(key);
             if (targetWorld == null) {
                 MultiWorldPositions.LOGGER.warn("Target world not found for {}", targetDimKey);
-                return false;
+                return CompletableFuture.completedFuture(TeleportService.Result.failed("target world not found: " + targetDimKey));
             }
         } catch (Exception e) {
             MultiWorldPositions.LOGGER.warn("Invalid target dimension key: {}", targetDimKey);
-            return false;
+            return CompletableFuture.completedFuture(TeleportService.Result.failed("invalid target dimension key: " + targetDimKey));
         }
 
-        boolean success = MultiWorldPositions.getTeleportService().teleport(player, targetDimKey);
-        if (success) {
-            TeleportPlacement.placeExactlyOrNearby(player, targetDimKey, pos);
-        } else {
-            MultiWorldPositions.LOGGER.info("[MWP] Intended cross-dimension redirect: {} -> {} at {}",
-                    player.getName().getString(), targetDimKey, pos);
-        }
-        return success;
+        PositionData safe = TeleportPlacement.resolveExactlyOrNearby(targetWorld, pos);
+        beginTransfer(player);
+        return MultiWorldPositions.teleportAsync(player, targetDimKey, safe).thenApply(result -> {
+            if (!result.success) {
+                MultiWorldPositions.LOGGER.info("[MWP] Intended cross-dimension redirect: {} -> {} at {}",
+                        player.getName().getString(), targetDimKey, pos);
+            }
+            return result;
+        });
     }
 }
@@ -3,6 +3,9 @@ package com.yarg.mwpositions;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.SpawnReason;
+import net.minecraft.entity.boss.dragon.EnderDragonEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
@@ -57,14 +60,12 @@ public final class EndArrivalHelper {
             for (int dz = -radius; dz <= radius; dz += 4) {
                 int x = around.getX() + dx;
                 int z = around.getZ() + dz;
-                for (int y = yMax; y >= yMin; y--) {
-                    BlockPos p = new BlockPos(x, y, z);
-                    if (w.getBlockState(p).isOf(Blocks.END_STONE)) {
-                        double d2 = p.getSquaredDistance(0.5, y + 0.5, 0.5);
-                        if (d2 < bestD2) { bestD2 = d2; best = p.toImmutable(); }
-                        break;
-                    }
-                }
+                // Sections without end stone in their palette are skipped whole
+                int y = SectionScanner.topmost(w, x, z, yMin, yMax, Blocks.END_STONE);
+                if (y == Integer.MIN_VALUE) continue;
+                BlockPos p = new BlockPos(x, y, z);
+                double d2 = p.getSquaredDistance(0.5, y + 0.5, 0.5);
+                if (d2 < bestD2) { bestD2 = d2; best = p; }
             }
         }
         return best;
@@ -73,12 +74,13 @@ public final class EndArrivalHelper {
     public static void spawnDragonIfEnabled(ServerWorld endWorld) {
         ModConfig cfg = MultiWorldPositions.getConfig();
         if (!cfg.endSpawnDragonOnArrival) return;
-        try {
-            // Summon via command at origin area. This is simple and avoids mapping-specific APIs.
-            String cmd = "execute in " + endWorld.getRegistryKey().getValue() + " run summon minecraft:ender_dragon 0 80 0";
-            endWorld.getServer().getCommandManager().executeWithPrefix(endWorld.getServer().getCommandSource().withLevel(4), cmd);
-        } catch (Exception e) {
-            MultiWorldPositions.LOGGER.warn("[MWP] Failed to spawn Ender Dragon by command", e);
+        EnderDragonEntity dragon = EntityType.ENDER_DRAGON.create(endWorld, SpawnReason.COMMAND);
+        if (dragon == null) {
+            MultiWorldPositions.LOGGER.warn("[MWP] Failed to create Ender Dragon in {}", endWorld.getRegistryKey().getValue());
+            return;
         }
+        // Above the main island, where the fight starts
+        dragon.refreshPositionAndAngles(0.0, 80.0, 0.0, dragon.getYaw(), dragon.getPitch());
+        endWorld.spawnEntity(dragon);
     }
 }
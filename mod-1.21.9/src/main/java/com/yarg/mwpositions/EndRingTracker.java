@@ -0,0 +1,73 @@
+package com.yarg.mwpositions;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.EndPortalFrameBlock;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Detects End portal ring completion when an eye is placed into a frame, and remembers completed rings
+ * per world so the interior is filled once. Only frames that just received an eye are checked, at the
+ * end of the tick they were used in; nothing is scanned per tick.
+ */
+public final class EndRingTracker {
+    // Completed ring centers (BlockPos#asLong) per world; server thread only
+    private final Map<RegistryKey<World>, Set<Long>> completed = new HashMap<>();
+    // Frames an eye is being used on; the use-block callback fires before the item sets EYE
+    private final List<Placed> placed = new ArrayList<>();
+
+    private static final class Placed {
+        final ServerWorld world;
+        final BlockPos framePos;
+
+        Placed(ServerWorld world, BlockPos framePos) {
+            this.world = world;
+            this.framePos = framePos;
+        }
+    }
+
+    /** Called from the use-block callback; the frame is checked in tick(), once the eye is in. */
+    public void onEyeUsed(ServerWorld world, BlockPos framePos) {
+        placed.add(new Placed(world, framePos.toImmutable()));
+    }
+
+    /** End of the server tick: checks the frames eyes were placed into during it. */
+    public void tick() {
+        if (placed.isEmpty()) return;
+        for (Placed p : placed) onEyePlaced(p.world, p.framePos);
+        placed.clear();
+    }
+
+    private void onEyePlaced(ServerWorld world, BlockPos framePos) {
+        BlockState st = world.getBlockState(framePos);
+        if (!st.isOf(Blocks.END_PORTAL_FRAME) || !st.get(EndPortalFrameBlock.EYE)) return;
+        BlockPos center = PortalFrameUtils.findCompletedEndRingCenter(world, framePos);
+        if (center == null) return;
+        Set<Long> rings = completed.computeIfAbsent(world.getRegistryKey(), k -> new HashSet<>());
+        if (!rings.add(center.asLong())) return;
+        boolean filled = PortalFrameUtils.fillEndPortalInterior(world, center);
+        if (MultiWorldPositions.getConfig().debugMode) {
+            MultiWorldPositions.LOGGER.debug("[MWP] End ring completed at {} in {} (filled={})",
+                    center, world.getRegistryKey().getValue(), filled);
+        }
+    }
+
+    /** Forgets any completed ring the broken frame belonged to, so a rebuilt ring is detected again. */
+    public void onFrameBroken(ServerWorld world, BlockPos framePos) {
+        Set<Long> rings = completed.get(world.getRegistryKey());
+        if (rings == null || rings.isEmpty()) return;
+        for (BlockPos center : PortalFrameUtils.endRingCenterCandidates(framePos)) {
+            rings.remove(center.asLong());
+        }
+    }
+}
@@ -5,40 +5,58 @@ import net.minecraft.registry.RegistryKeys;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.TeleportTarget;
 import net.minecraft.world.World;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
- * 1.21.9 overlay: Same behavior, but debug reads world via getServerWorld().
+ * 1.21.9 overlay: Same behavior, but reads the server and world via getCommandSource()/getEntityWorld().
  */
 public class FabricTeleportService implements TeleportService {
     @Override
     public boolean teleport(ServerPlayerEntity player, String targetDimKey) {
+        return teleport(player, targetDimKey,
+                new PositionData(player.getX(), player.getY(), player.getZ(), player.getYaw(), player.getPitch()));
+    }
+
+    @Override
+    public boolean teleport(ServerPlayerEntity player, String targetDimKey, PositionData pos) {
+        return move(player, targetDimKey, pos).success;
+    }
+
+    @Override
+    public CompletableFuture<Result> teleportAsync(ServerPlayerEntity player, String targetDimKey, PositionData pos) {
+        if (pos == null) pos = new PositionData(player.getX(), player.getY(), player.getZ(), player.getYaw(), player.getPitch());
+        return CompletableFuture.completedFuture(move(player, targetDimKey, pos));
+    }
+
+    private Result move(ServerPlayerEntity player, String targetDimKey, PositionData pos) {
         try {
-            Identifier id = Identifier.of(targetDimKey);
-            RegistryKey<World> key = RegistryKey.of(RegistryKeys.WORLD, id);
+            RegistryKey<World> key = RegistryKey.of(RegistryKeys.WORLD, Identifier.of(targetDimKey));
             ServerWorld target = player.getCommandSource().getServer().getWorld(key);
             if (target == null) {
                 MultiWorldPositions.LOGGER.warn("[MWP] Target world not found: {}", targetDimKey);
-                return false;
+                return Result.failed("target world not found: " + targetDimKey);
             }
 
             player.setVelocity(0, 0, 0);
             player.velocityModified = true;
             player.fallDistance = 0f;
 
-            net.minecraft.server.command.ServerCommandSource src = player.getCommandSource().withSilent();
-            String cmd = "execute in " + targetDimKey + " run tp @s ~ ~ ~";
-            player.getCommandSource().getServer().getCommandManager().executeWithPrefix(src, cmd);
+            player.teleportTo(new TeleportTarget(target, new Vec3d(pos.x, pos.y, pos.z), Vec3d.ZERO,
+                    pos.yaw, pos.pitch, TeleportTarget.NO_OP));
 
             if (MultiWorldPositions.getConfig().debugMode) {
                 String afterKey = player.getEntityWorld().getRegistryKey().getValue().toString();
                 MultiWorldPositions.LOGGER.debug("[MWP] TeleportService: post-teleport world for {} is {}",
                         player.getName().getString(), afterKey);
             }
-            return true;
+            return Result.moved(targetDimKey, pos);
         } catch (Exception e) {
             MultiWorldPositions.LOGGER.warn("[MWP] Failed to cross-dimension teleport to {}", targetDimKey, e);
-            return false;
+            return Result.failed(e.toString());
         }
     }
 }
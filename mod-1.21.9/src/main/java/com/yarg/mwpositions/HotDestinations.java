@@ -0,0 +1,174 @@
+package com.yarg.mwpositions;
+
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ChunkTicketType;
+import net.minecraft.server.world.ServerChunkManager;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the busiest arrival spots loaded: group spawns (or the primary world's spawn), hub world spawns
+ * and any extra hotDestinations from the config. Each is held by a chunk ticket that is refreshed before
+ * it expires, and its safe standing spot is resolved once and cached, so arrivals there read blocks from
+ * memory and skip the safe-location search. All methods run on the server thread.
+ */
+public final class HotDestinations {
+    // Portal tickets expire after 300 ticks; refresh them (and re-check the spots) well before that
+    private static final int REFRESH_TICKS = 200;
+    // One wider than ArrivalPreloader's tickets, so the two never share (and release) the same ticket;
+    // full chunks within 3 chunks of the spot cover the whole safe-spot search
+    private static final int TICKET_RADIUS = 3;
+    // SafeLocationFinder.findSafeNear scans up to 24 blocks around the spot
+    private static final int SEARCH_RADIUS = 24;
+
+    private static final class Pin {
+        final ServerWorld world;
+        final PositionData desired;
+        final BlockPos block;
+        PositionData safe;
+
+        Pin(ServerWorld world, PositionData desired) {
+            this.world = world;
+            this.desired = desired;
+            this.block = BlockPos.ofFloored(desired.x, desired.y, desired.z);
+        }
+    }
+
+    private final Map<String, Pin> pins = new HashMap<>();
+    private int ticksUntilRefresh;
+
+    /**
+     * Cached safe spot for desired if it is a pinned destination (keeping the caller's facing), else null.
+     * The spot is re-checked first; its chunks are held loaded, so that never loads anything.
+     */
+    public PositionData safeSpot(ServerWorld world, PositionData desired) {
+        Pin pin = pins.get(key(world, BlockPos.ofFloored(desired.x, desired.y, desired.z)));
+        if (pin == null || pin.safe == null) return null;
+        if (!stillSafe(pin)) {
+            pin.safe = TeleportPlacement.searchExactlyOrNearby(pin.world, pin.desired);
+        }
+        return new PositionData(pin.safe.x, pin.safe.y, pin.safe.z, desired.yaw, desired.pitch);
+    }
+
+    /** Re-reads the destination list on the next tick, e.g. after a config reload. */
+    public void refreshSoon() {
+        ticksUntilRefresh = 0;
+    }
+
+    /** Every few seconds: pins new destinations, releases dropped ones, and refreshes tickets and safe spots. */
+    public void tick(MinecraftServer server) {
+        if (--ticksUntilRefresh > 0) return;
+        ticksUntilRefresh = REFRESH_TICKS;
+
+        Map<String, Pin> wanted = collect(server);
+        for (Iterator<Map.Entry<String, Pin>> it = pins.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Pin> e = it.next();
+            if (wanted.containsKey(e.getKey())) continue;
+            Pin pin = e.getValue();
+            pin.world.getChunkManager().removeTicket(ChunkTicketType.PORTAL, new ChunkPos(pin.block), TICKET_RADIUS);
+            it.remove();
+        }
+        for (Map.Entry<String, Pin> e : wanted.entrySet()) {
+            Pin pin = pins.computeIfAbsent(e.getKey(), k -> e.getValue());
+            // Adding an existing ticket again restarts its expiry
+            pin.world.getChunkManager().addTicket(ChunkTicketType.PORTAL, new ChunkPos(pin.block), TICKET_RADIUS);
+            // Blocks may have changed; re-resolve once the whole search area is in memory
+            if (loaded(pin)) pin.safe = TeleportPlacement.searchExactlyOrNearby(pin.world, pin.desired);
+        }
+        if (MultiWorldPositions.getConfig().debugMode) {
+            MultiWorldPositions.LOGGER.debug("[MWP] HotDestinations: {} pinned", pins.size());
+        }
+    }
+
+    private static Map<String, Pin> collect(MinecraftServer server) {
+        ModConfig cfg = MultiWorldPositions.getConfig();
+        Map<String, Pin> out = new LinkedHashMap<>();
+        if (cfg.pinGroupSpawns) {
+            // Where planArrival and the hub command send players without a saved position
+            for (WorldGroup g : cfg.worldGroups) {
+                if (g == null || g.overworld == null || g.overworld.isBlank()) continue;
+                ServerWorld w = worldFor(server, g.overworld);
+                if (w == null) continue;
+                if (g.spawnX != null && g.spawnY != null && g.spawnZ != null) {
+                    add(out, w, new PositionData(g.spawnX, g.spawnY, g.spawnZ, 0f, 0f));
+                } else {
+                    add(out, w, spawnOf(w));
+                }
+            }
+            for (String hub : cfg.hubWorldsExcluded) {
+                ServerWorld w = worldFor(server, hub);
+                if (w != null) add(out, w, spawnOf(w));
+            }
+        }
+        // "dimension" pins its spawn, "dimension x y z" a given spot
+        if (cfg.hotDestinations == null) return out;
+        for (String entry : cfg.hotDestinations) {
+            String[] parts = entry == null ? new String[0] : entry.trim().split("\\s+");
+            ServerWorld w = parts.length > 0 ? worldFor(server, parts[0]) : null;
+            try {
+                if (w != null && parts.length == 1) {
+                    add(out, w, spawnOf(w));
+                    continue;
+                }
+                if (w != null && parts.length == 4) {
+                    add(out, w, new PositionData(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]),
+                            Double.parseDouble(parts[3]), 0f, 0f));
+                    continue;
+                }
+            } catch (NumberFormatException ignored) {
+            }
+            if (cfg.debugMode) {
+                MultiWorldPositions.LOGGER.debug("[MWP] HotDestinations: ignoring invalid entry '{}'", entry);
+            }
+        }
+        return out;
+    }
+
+    private static void add(Map<String, Pin> out, ServerWorld w, PositionData pos) {
+        Pin pin = new Pin(w, pos);
+        out.putIfAbsent(key(w, pin.block), pin);
+    }
+
+    private static boolean loaded(Pin pin) {
+        ServerChunkManager chunks = pin.world.getChunkManager();
+        for (int cx = (pin.block.getX() - SEARCH_RADIUS) >> 4; cx <= (pin.block.getX() + SEARCH_RADIUS) >> 4; cx++) {
+            for (int cz = (pin.block.getZ() - SEARCH_RADIUS) >> 4; cz <= (pin.block.getZ() + SEARCH_RADIUS) >> 4; cz++) {
+                if (!chunks.isChunkLoaded(cx, cz)) return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean stillSafe(Pin pin) {
+        int x = (int) Math.floor(pin.safe.x);
+        int y = (int) Math.floor(pin.safe.y);
+        int z = (int) Math.floor(pin.safe.z);
+        return SafeLocationFinder.isTwoTallAirWithSolidFloor(pin.world, x, y, z);
+    }
+
+    private static PositionData spawnOf(ServerWorld w) {
+        BlockPos sp = w.getSpawnPoint().getPos();
+        return new PositionData(sp.getX() + 0.5, sp.getY(), sp.getZ() + 0.5, 0f, 0f);
+    }
+
+    private static String key(ServerWorld w, BlockPos block) {
+        return w.getRegistryKey().getValue() + "@" + block.getX() + "," + block.getY() + "," + block.getZ();
+    }
+
+    private static ServerWorld worldFor(MinecraftServer server, String dimKey) {
+        try {
+            return server.getWorld(RegistryKey.of(RegistryKeys.WORLD, Identifier.of(dimKey)));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -78,6 +78,22 @@ public class ModConfig {
     public boolean killBlockingMobs = true;          // allow removing mobs in the way
     public double killBlockingRadius = 0.75;         // half-extent for the clearance box
 
+    // Last-known position sampling (origin capture for world changes)
+    public double lastKnownSampleDistance = 1.0;     // re-sample after moving this many blocks
+
+    // Per-player tick work (portal checks) is spread round-robin across ticks within this budget
+    public double playerWorkBudgetMillis = 2.0;      // per-tick budget for non-urgent players
+    public int playerWorkMinPerTick = 1;             // always make progress even when over budget
+
+    // Cross-world moves are admitted per tick within these budgets (portals, then commands, then admin moves); the rest queue
+    public int transferMaxPerTick = 4;               // moves started per tick
+    public int transferChunkLoadsPerTick = 32;       // estimated destination chunk loads started per tick
+
+    // Busy destinations kept loaded, with their safe arrival spot cached. Each pin holds 7x7 chunks fully loaded
+    // (and a wider ring partially) for as long as the server runs, so on servers with many groups it costs memory
+    public boolean pinGroupSpawns = false;           // group spawns (or their primary world's spawn) and hub world spawns
+    public List<String> hotDestinations = new ArrayList<>(); // extra: "dimension" (its spawn) or "dimension x y z"
+
     public ModConfig() {
         hubWorldsExcluded.add("multiverse:spawn");
         // Prepopulate vanilla default dimensions
@@ -8,10 +8,31 @@ import static net.minecraft.server.command.CommandManager.literal;
 
 /**
  * 1.21.9 overlay: minimal commands (no GameProfileArgumentType) to avoid mapping differences.
- * Provides /survival and per-group commands only.
+ * Provides /survival, per-group commands and /mwp timings only.
  */
 public class MwpCommands {
     public static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
+        // /mwp timings [reset]: per transfer type, average stage timings since start (or the last reset)
+        dispatcher.register(
+                literal("mwp")
+                        .requires(src -> src.hasPermissionLevel(3))
+                        .then(literal("timings")
+                                .executes(ctx -> {
+                                    for (String line : MultiWorldPositions.getTransferPipeline().report()) {
+                                        ctx.getSource().sendFeedback(() -> net.minecraft.text.Text.of(line), false);
+                                    }
+                                    return 1;
+                                })
+                                .then(literal("reset")
+                                        .executes(ctx -> {
+                                            MultiWorldPositions.getTransferPipeline().reset();
+                                            ctx.getSource().sendFeedback(() -> net.minecraft.text.Text.of("Cleared transfer timings"), true);
+                                            return 1;
+                                        })
+                                )
+                        )
+        );
+
         // /survival (executor only)
         dispatcher.register(
                 literal("survival")
@@ -37,11 +58,17 @@ public class MwpCommands {
                                 destDim = "minecraft:overworld";
                             }
 
-                            boolean ok = MultiWorldPositions.getTeleportService().teleport(player, destDim);
-                            if (ok) {
-                                player.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
-                            }
-                            return ok ? 1 : 0;
+                            final String survivalDim = destDim;
+                            boolean queued = MultiWorldPositions.getTransferQueue().submit(player, TransferQueue.Priority.COMMAND, survivalDim, () -> {
+                                MultiWorldPositions.teleportAsync(player, survivalDim, null).thenAccept(result -> {
+                                    if (!result.success) {
+                                        player.sendMessage(net.minecraft.text.Text.of("Teleport failed: " + result.failure), false);
+                                        return;
+                                    }
+                                    player.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
+                                });
+                            });
+                            return queued ? 1 : 0;
                         })
         );
 
@@ -66,44 +93,64 @@ public class MwpCommands {
                                 String dimCandidate = MultiWorldPositions.getPositionStorage().getLastGroupMember(player.getUuid(), gFinal.id);
                                 if (dimCandidate == null || MultiWorldPositions.getConfig().isHubWorld(dimCandidate)) dimCandidate = destFinal;
 
-                                boolean ok = MultiWorldPositions.getTeleportService().teleport(player, dimCandidate);
-                                if (ok) {
-                                    // Gamemode inference
-                                    String idLower = cmdName.toLowerCase(java.util.Locale.ROOT);
-                                    if (idLower.contains("creative")) player.changeGameMode(net.minecraft.world.GameMode.CREATIVE);
-                                    else if (idLower.contains("survival")) player.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
-                                    else if (idLower.contains("hub")) player.changeGameMode(net.minecraft.world.GameMode.ADVENTURE);
+                                final String dest = dimCandidate;
 
-                                    if ("hub".equalsIgnoreCase(cmdName)) {
-                                        // Place at configured hub spawn
-                                        PositionData target;
-                                        if (gFinal.spawnX != null && gFinal.spawnY != null && gFinal.spawnZ != null) {
-                                            double tx = gFinal.spawnX;
-                                            double tz = gFinal.spawnZ;
-                                            if (Math.floor(tx) == tx) tx += 0.5; if (Math.floor(tz) == tz) tz += 0.5;
-                                            target = new PositionData(tx, gFinal.spawnY, tz,
-                                                    gFinal.spawnYaw != null ? gFinal.spawnYaw : player.getYaw(),
-                                                    gFinal.spawnPitch != null ? gFinal.spawnPitch : player.getPitch());
-                                        } else {
-                                            net.minecraft.util.Identifier id = net.minecraft.util.Identifier.of(dimCandidate);
-                                            net.minecraft.registry.RegistryKey<net.minecraft.world.World> key = net.minecraft.registry.RegistryKey.of(net.minecraft.registry.RegistryKeys.WORLD, id);
-                                            net.minecraft.server.world.ServerWorld tw = player.getCommandSource().getServer().getWorld(key);
-                                            if (tw != null) {
-                                                net.minecraft.util.math.BlockPos sp = tw.getSpawnPoint().getPos();
-                                                target = new PositionData(sp.getX() + 0.5, sp.getY(), sp.getZ() + 0.5, player.getYaw(), player.getPitch());
-                                            } else {
-                                                target = new PositionData(player.getX(), player.getY(), player.getZ(), player.getYaw(), player.getPitch());
+                                if ("hub".equalsIgnoreCase(cmdName)) {
+                                    // Arrive at the configured hub spawn in one move
+                                    net.minecraft.server.world.ServerWorld tw = player.getCommandSource().getServer().getWorld(net.minecraft.registry.RegistryKey.of(
+                                            net.minecraft.registry.RegistryKeys.WORLD, net.minecraft.util.Identifier.of(dest)));
+                                    PositionData target = hubSpawn(player, gFinal, tw);
+                                    boolean queued = MultiWorldPositions.getTransferQueue().submit(player, TransferQueue.Priority.COMMAND, dest, target, () -> {
+                                        PositionData landing = tw != null
+                                                ? MultiWorldPositions.getTransferPipeline().stage(player, TransferPipeline.Stage.FIND_SAFE_SPOT,
+                                                        () -> TeleportPlacement.resolveExactlyOrNearby(tw, target))
+                                                : target;
+                                        MultiWorldPositions.teleportAsync(player, dest, landing).thenAccept(result -> {
+                                            if (!result.success) {
+                                                player.sendMessage(net.minecraft.text.Text.of("Teleport failed: " + result.failure), false);
+                                                return;
                                             }
-                                        }
-                                        MultiWorldPositions.getPositionStorage().setPosition(player.getUuid(), dimCandidate, target);
-                                        final PositionData hubTarget = target;
-                                        final String hubDim = dimCandidate;
-                                        player.getCommandSource().getServer().execute(() -> TeleportPlacement.placeExactlyOrNearby(player, hubDim, hubTarget));
-                                    }
+                                            applyGameMode(player, cmdName);
+                                            MultiWorldPositions.getPositionStorage().setPosition(player.getUuid(), dest, target);
+                                        });
+                                    });
+                                    return queued ? 1 : 0;
                                 }
-                                return ok ? 1 : 0;
+
+                                boolean queued = MultiWorldPositions.getTransferQueue().submit(player, TransferQueue.Priority.COMMAND, dest, () -> {
+                                    MultiWorldPositions.teleportAsync(player, dest, null).thenAccept(result -> {
+                                        if (result.success) applyGameMode(player, cmdName);
+                                        else player.sendMessage(net.minecraft.text.Text.of("Teleport failed: " + result.failure), false);
+                                    });
+                                });
+                                return queued ? 1 : 0;
                             })
             );
         }
     }
+
+    // Gamemode inference from the group id
+    private static void applyGameMode(net.minecraft.server.network.ServerPlayerEntity player, String cmdName) {
+        String idLower = cmdName.toLowerCase(java.util.Locale.ROOT);
+        if (idLower.contains("creative")) player.changeGameMode(net.minecraft.world.GameMode.CREATIVE);
+        else if (idLower.contains("survival")) player.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
+        else if (idLower.contains("hub")) player.changeGameMode(net.minecraft.world.GameMode.ADVENTURE);
+    }
+
+    private static PositionData hubSpawn(net.minecraft.server.network.ServerPlayerEntity player, WorldGroup g,
+                                         net.minecraft.server.world.ServerWorld tw) {
+        if (g.spawnX != null && g.spawnY != null && g.spawnZ != null) {
+            double tx = g.spawnX;
+            double tz = g.spawnZ;
+            if (Math.floor(tx) == tx) tx += 0.5; if (Math.floor(tz) == tz) tz += 0.5;
+            return new PositionData(tx, g.spawnY, tz,
+                    g.spawnYaw != null ? g.spawnYaw : player.getYaw(),
+                    g.spawnPitch != null ? g.spawnPitch : player.getPitch());
+        }
+        if (tw != null) {
+            net.minecraft.util.math.BlockPos sp = tw.getSpawnPoint().getPos();
+            return new PositionData(sp.getX() + 0.5, sp.getY(), sp.getZ() + 0.5, player.getYaw(), player.getPitch());
+        }
+        return new PositionData(player.getX(), player.getY(), player.getZ(), player.getYaw(), player.getPitch());
+    }
 }
@@ -0,0 +1,76 @@
+package com.yarg.mwpositions;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Online players bucketed by dimension and by world group, kept current on JOIN, DISCONNECT and world
+ * changes so per-dimension or per-group work iterates exactly the relevant players. Server thread only.
+ */
+public final class OnlineRoster {
+    private final Map<UUID, String> dimensionOf = new HashMap<>();
+    private final Map<String, Set<UUID>> byDimension = new HashMap<>();
+    private final Map<String, Set<UUID>> byGroup = new HashMap<>();
+
+    /** Records the player's current dimension (join, world change or respawn). */
+    public void moveTo(UUID playerId, String dimensionKey) {
+        String prev = dimensionOf.put(playerId, dimensionKey);
+        if (dimensionKey.equals(prev)) return;
+        if (prev != null) unlink(playerId, prev);
+        byDimension.computeIfAbsent(dimensionKey, k -> new HashSet<>()).add(playerId);
+        String gid = MultiWorldPositions.getConfig().getGroupIdForWorld(dimensionKey);
+        if (gid != null) byGroup.computeIfAbsent(gid, k -> new HashSet<>()).add(playerId);
+    }
+
+    public void leave(UUID playerId) {
+        String prev = dimensionOf.remove(playerId);
+        if (prev != null) unlink(playerId, prev);
+    }
+
+    /** Group membership comes from the config; rebuild the group buckets after a reload. */
+    public void regroup() {
+        byGroup.clear();
+        ModConfig cfg = MultiWorldPositions.getConfig();
+        for (Map.Entry<String, Set<UUID>> e : byDimension.entrySet()) {
+            String gid = cfg.getGroupIdForWorld(e.getKey());
+            if (gid != null) byGroup.computeIfAbsent(gid, k -> new HashSet<>()).addAll(e.getValue());
+        }
+    }
+
+    public Set<UUID> inDimension(String dimensionKey) {
+        Set<UUID> s = byDimension.get(dimensionKey);
+        return s != null ? Collections.unmodifiableSet(s) : Collections.emptySet();
+    }
+
+    public Set<UUID> inGroup(String groupId) {
+        Set<UUID> s = byGroup.get(groupId);
+        return s != null ? Collections.unmodifiableSet(s) : Collections.emptySet();
+    }
+
+    /** Dimensions with at least one online player. */
+    public Set<String> dimensions() {
+        return Collections.unmodifiableSet(byDimension.keySet());
+    }
+
+    /** Groups with at least one online player. */
+    public Set<String> groups() {
+        return Collections.unmodifiableSet(byGroup.keySet());
+    }
+
+    private void unlink(UUID playerId, String dimensionKey) {
+        removeFrom(byDimension, dimensionKey, playerId);
+        String gid = MultiWorldPositions.getConfig().getGroupIdForWorld(dimensionKey);
+        if (gid != null) removeFrom(byGroup, gid, playerId);
+    }
+
+    private static void removeFrom(Map<String, Set<UUID>> buckets, String key, UUID playerId) {
+        Set<UUID> s = buckets.get(key);
+        if (s == null) return;
+        s.remove(playerId);
+        if (s.isEmpty()) buckets.remove(key);
+    }
+}
@@ -172,7 +172,7 @@ public final class PortalFrameUtils {
      */
     public static boolean wouldCompleteEndPortal(ServerWorld world, BlockPos pos, BlockState stateAtPos) {
         // Do not intercept Eye placement; let vanilla handle state updates.
-        // Completion will be detected later in tick() and visualized if needed.
+        // Completion is checked right after the placement (see EndRingTracker).
         return false;
     }
 
@@ -217,6 +217,7 @@ public final class PortalFrameUtils {
                 }
             }
         }
+        if (placed) MultiWorldPositions.getPortalRegistry().register(world, fb);
         if (MultiWorldPositions.getConfig().debugMode) {
             MultiWorldPositions.LOGGER.debug("[MWP] Filled portal interior: axis={}, x=[{}..{}], y=[{}..{}], z=[{}..{}] at {}",
                     fb.axis, fb.minX, fb.maxX, fb.minY, fb.maxY, fb.minZ, fb.maxZ, framePos);
@@ -225,15 +226,14 @@ public final class PortalFrameUtils {
     }
 
     /**
-     * Fill a 3x3 area with end portal blocks at approximately the frame interior height.
+     * Fill the 3x3 interior of an End portal ring with end portal blocks. The interior sits on the frame
+     * plane (same Y as the frames), exactly where vanilla places it.
      */
-    public static boolean fillEndPortalInterior(ServerWorld world, BlockPos centerNearFrame) {
-        // Place at one block below the frame top (vanilla interior plane)
-        int y = centerNearFrame.getY() - 1;
+    public static boolean fillEndPortalInterior(ServerWorld world, BlockPos ringCenter) {
         boolean placed = false;
         for (int dx = -1; dx <= 1; dx++) {
             for (int dz = -1; dz <= 1; dz++) {
-                BlockPos p = new BlockPos(centerNearFrame.getX() + dx, y, centerNearFrame.getZ() + dz);
+                BlockPos p = ringCenter.add(dx, 0, dz);
                 if (world.getBlockState(p).isAir()) {
                     world.setBlockState(p, Blocks.END_PORTAL.getDefaultState());
                     placed = true;
@@ -243,45 +243,45 @@ public final class PortalFrameUtils {
         return placed;
     }
 
+    // Offsets of the 12 frame blocks from the ring center (3 per side, no corners)
+    private static final int[][] END_RING_FRAMES = {
+            {-1, -2}, {0, -2}, {1, -2},
+            {-1, 2}, {0, 2}, {1, 2},
+            {-2, -1}, {-2, 0}, {-2, 1},
+            {2, -1}, {2, 0}, {2, 1}
+    };
+
     /**
-     * Detects whether a complete End portal ring (12 frames with eyes) surrounds a 3x3 interior
-     * centered roughly around the provided position. Returns true if such a ring exists.
+     * Candidate ring centers for a frame block: one per ring slot the frame could occupy.
      */
-    public static boolean isEndRingComplete(ServerWorld world, BlockPos near) {
-        // We treat 'near' as approximately the center on the frame plane (y = frame top).
-        // Probe a few candidate centers around 'near' to account for where the player clicked/stood.
-        int frameY = world.getBlockState(near).isOf(Blocks.END_PORTAL_FRAME) ? near.getY() : near.getY();
-        for (int ox = -1; ox <= 1; ox++) {
-            for (int oz = -1; oz <= 1; oz++) {
-                int cx = near.getX() + ox;
-                int cz = near.getZ() + oz;
-                if (isCompleteEndRingAt(world, cx, frameY, cz)) {
-                    return true;
-                }
-            }
+    public static BlockPos[] endRingCenterCandidates(BlockPos framePos) {
+        BlockPos[] out = new BlockPos[END_RING_FRAMES.length];
+        for (int i = 0; i < END_RING_FRAMES.length; i++) {
+            out[i] = framePos.add(-END_RING_FRAMES[i][0], 0, -END_RING_FRAMES[i][1]);
         }
-        return false;
+        return out;
     }
 
-    private static boolean isCompleteEndRingAt(ServerWorld world, int cx, int frameY, int cz) {
-        // Validate border: all positions where |dx|==2 or |dz|==2 within 5x5 must be END_PORTAL_FRAME with EYE=true
-        for (int dx = -2; dx <= 2; dx++) {
-            for (int dz = -2; dz <= 2; dz++) {
-                if (Math.abs(dx) == 2 || Math.abs(dz) == 2) {
-                    BlockPos bp = new BlockPos(cx + dx, frameY, cz + dz);
-                    BlockState st = world.getBlockState(bp);
-                    if (!st.isOf(Blocks.END_PORTAL_FRAME)) return false;
-                    Boolean eye = st.getOrEmpty(EndPortalFrameBlock.EYE).orElse(false);
-                    if (eye == null || !eye) return false;
-                }
-            }
+    /**
+     * Returns the center of a complete End portal ring (12 frames with eyes around a clear 3x3 interior)
+     * that contains the given frame block, or null if none.
+     */
+    public static BlockPos findCompletedEndRingCenter(ServerWorld world, BlockPos framePos) {
+        for (BlockPos center : endRingCenterCandidates(framePos)) {
+            if (isCompleteEndRingAt(world, center)) return center;
+        }
+        return null;
+    }
+
+    private static boolean isCompleteEndRingAt(ServerWorld world, BlockPos center) {
+        for (int[] off : END_RING_FRAMES) {
+            BlockState st = world.getBlockState(center.add(off[0], 0, off[1]));
+            if (!st.isOf(Blocks.END_PORTAL_FRAME) || !st.get(EndPortalFrameBlock.EYE)) return false;
         }
-        // Interior should be clear (air/portal) at y-1 so we can place portal blocks
-        int yInterior = frameY - 1;
+        // Interior on the frame plane must be clear (air/portal) so we can place portal blocks
         for (int dx = -1; dx <= 1; dx++) {
             for (int dz = -1; dz <= 1; dz++) {
-                BlockPos ip = new BlockPos(cx + dx, yInterior, cz + dz);
-                BlockState st = world.getBlockState(ip);
+                BlockState st = world.getBlockState(center.add(dx, 0, dz));
                 if (!(st.isAir() || st.isOf(Blocks.CAVE_AIR) || st.isOf(Blocks.VOID_AIR) || st.isOf(Blocks.END_PORTAL))) {
                     return false;
                 }
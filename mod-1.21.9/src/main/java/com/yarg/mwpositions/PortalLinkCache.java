@@ -0,0 +1,233 @@
+package com.yarg.mwpositions;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.NetherPortalBlock;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers which portal a group portal leads to, per group and in both directions, so repeat trips
+ * through the same portal skip the return-portal search. Portals are identified by their lowest,
+ * min-axis portal block. Links are persisted under config/portallinks and dropped when either portal
+ * collapses, however it is broken (see NetherPortalBlockMixin), or a lookup finds the destination gone.
+ */
+public final class PortalLinkCache {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final Path STORAGE_DIR = Path.of("config", "portallinks");
+    // Largest vanilla portal frame is 23x23 including obsidian
+    private static final int MAX_FRAME_SPAN = 22;
+
+    private static class Entry {
+        String fromDim;
+        int fromX, fromY, fromZ;
+        String toDim;
+        int toX, toY, toZ;
+    }
+
+    // One file per group; the id is stored because file names cannot hold every character of it
+    private static class LinkFile {
+        String groupId;
+        List<Entry> links;
+    }
+
+    private static final class Endpoint {
+        final String dim;
+        final BlockPos pos;
+
+        Endpoint(String dim, BlockPos pos) {
+            this.dim = dim;
+            this.pos = pos;
+        }
+
+        String key() {
+            return key(dim, pos);
+        }
+
+        static String key(String dim, BlockPos pos) {
+            return dim + "|" + pos.getX() + "|" + pos.getY() + "|" + pos.getZ();
+        }
+    }
+
+    // group id -> source portal key -> destination portal
+    private final Map<String, Map<String, Endpoint>> byGroup = new HashMap<>();
+
+    public PortalLinkCache() {
+        try {
+            Files.createDirectories(STORAGE_DIR);
+        } catch (IOException e) {
+            MultiWorldPositions.LOGGER.error("[MWP] Failed to create portal link dir", e);
+        }
+        loadAll();
+    }
+
+    /** Canonical cell of the Nether portal containing pos (or the block above it), or null if there is none. */
+    public static BlockPos portalCellAt(ServerWorld w, BlockPos pos) {
+        BlockPos p = w.getBlockState(pos).isOf(Blocks.NETHER_PORTAL) ? pos : pos.up();
+        BlockState st = w.getBlockState(p);
+        if (!st.isOf(Blocks.NETHER_PORTAL)) return null;
+        Direction toMin = (st.get(NetherPortalBlock.AXIS) == Direction.Axis.X) ? Direction.WEST : Direction.NORTH;
+        BlockPos.Mutable m = p.mutableCopy();
+        while (w.getBlockState(m.move(Direction.DOWN)).isOf(Blocks.NETHER_PORTAL)) { }
+        m.move(Direction.UP);
+        while (w.getBlockState(m.move(toMin)).isOf(Blocks.NETHER_PORTAL)) { }
+        m.move(toMin.getOpposite());
+        return m.toImmutable();
+    }
+
+    /**
+     * Linked destination portal cell for the given source portal if it leads to toWorld and is still
+     * standing there; a link whose portal is gone is forgotten.
+     */
+    public BlockPos verified(String groupId, String fromDim, BlockPos fromCell, ServerWorld toWorld) {
+        if (groupId == null || fromCell == null) return null;
+        Map<String, Endpoint> links = byGroup.get(groupId);
+        if (links == null) return null;
+        Endpoint to = links.get(Endpoint.key(fromDim, fromCell));
+        if (to == null) return null;
+        if (!to.dim.equals(toWorld.getRegistryKey().getValue().toString())) return null;
+        if (toWorld.getBlockState(to.pos).isOf(Blocks.NETHER_PORTAL)) return to.pos;
+        links.remove(Endpoint.key(fromDim, fromCell));
+        links.remove(to.key());
+        save(groupId, links);
+        return null;
+    }
+
+    /**
+     * Linked destination portal cell for the given source portal in toDim, without checking that it still
+     * stands (so the destination's chunks are not touched); use verified() before placing anyone there.
+     */
+    public BlockPos linked(String groupId, String fromDim, BlockPos fromCell, String toDim) {
+        if (groupId == null || fromCell == null) return null;
+        Map<String, Endpoint> links = byGroup.get(groupId);
+        if (links == null) return null;
+        Endpoint to = links.get(Endpoint.key(fromDim, fromCell));
+        return (to != null && to.dim.equals(toDim)) ? to.pos : null;
+    }
+
+    /** Links the two portals (given by any of their portal blocks) both ways for this group. */
+    public void link(String groupId, ServerWorld a, BlockPos cellA, ServerWorld b, BlockPos cellB) {
+        if (groupId == null || cellA == null || cellB == null) return;
+        BlockPos ca = portalCellAt(a, cellA);
+        BlockPos cb = portalCellAt(b, cellB);
+        if (ca == null || cb == null) return;
+        Endpoint ea = new Endpoint(a.getRegistryKey().getValue().toString(), ca);
+        Endpoint eb = new Endpoint(b.getRegistryKey().getValue().toString(), cb);
+        Map<String, Endpoint> links = byGroup.computeIfAbsent(groupId, k -> new HashMap<>());
+        links.put(ea.key(), eb);
+        links.put(eb.key(), ea);
+        save(groupId, links);
+        if (MultiWorldPositions.getConfig().debugMode) {
+            MultiWorldPositions.LOGGER.debug("[MWP] PortalLink cache: {} <-> {} (group {})", ea.key(), eb.key(), groupId);
+        }
+    }
+
+    /** Drops every link with an endpoint whose frame could contain the broken block. */
+    public void invalidateNear(ServerWorld w, BlockPos broken) {
+        String dim = w.getRegistryKey().getValue().toString();
+        for (Map.Entry<String, Map<String, Endpoint>> group : byGroup.entrySet()) {
+            Map<String, Endpoint> links = group.getValue();
+            boolean changed = false;
+            for (Iterator<Map.Entry<String, Endpoint>> it = links.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Endpoint> e = it.next();
+                Endpoint to = e.getValue();
+                String fromKey = e.getKey();
+                boolean hitTo = to.dim.equals(dim) && mayBelongTo(to.pos, broken);
+                boolean hitFrom = fromKey.startsWith(dim + "|") && mayBelongTo(parsePos(fromKey), broken);
+                if (hitTo || hitFrom) {
+                    it.remove();
+                    changed = true;
+                }
+            }
+            if (changed) save(group.getKey(), links);
+        }
+    }
+
+    // The canonical cell is the portal's min corner, so its frame spans [cell - 1, cell + MAX_FRAME_SPAN - 1]
+    private static boolean mayBelongTo(BlockPos cell, BlockPos p) {
+        return p.getX() >= cell.getX() - 1 && p.getX() < cell.getX() + MAX_FRAME_SPAN
+                && p.getY() >= cell.getY() - 1 && p.getY() < cell.getY() + MAX_FRAME_SPAN
+                && p.getZ() >= cell.getZ() - 1 && p.getZ() < cell.getZ() + MAX_FRAME_SPAN;
+    }
+
+    private static BlockPos parsePos(String key) {
+        String[] parts = key.split("\\|");
+        int n = parts.length;
+        return new BlockPos(Integer.parseInt(parts[n - 3]), Integer.parseInt(parts[n - 2]), Integer.parseInt(parts[n - 1]));
+    }
+
+    private static Path fileFor(String groupId) {
+        return STORAGE_DIR.resolve(groupId.replace(':', '_').replace('/', '_') + ".json");
+    }
+
+    private void loadAll() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(STORAGE_DIR, "*.json")) {
+            for (Path file : files) {
+                try {
+                    JsonElement json = JsonParser.parseString(Files.readString(file));
+                    String groupId;
+                    List<Entry> entries;
+                    if (json.isJsonArray()) {
+                        // Older files held just the links; their name is the best guess at the id
+                        groupId = file.getFileName().toString().replaceFirst("\\.json$", "");
+                        entries = GSON.fromJson(json, new TypeToken<List<Entry>>(){}.getType());
+                    } else {
+                        LinkFile stored = GSON.fromJson(json, LinkFile.class);
+                        if (stored == null) continue;
+                        groupId = stored.groupId;
+                        entries = stored.links;
+                    }
+                    if (groupId == null || entries == null) continue;
+                    Map<String, Endpoint> links = new HashMap<>();
+                    for (Entry e : entries) {
+                        links.put(Endpoint.key(e.fromDim, new BlockPos(e.fromX, e.fromY, e.fromZ)),
+                                new Endpoint(e.toDim, new BlockPos(e.toX, e.toY, e.toZ)));
+                    }
+                    byGroup.put(groupId, links);
+                } catch (Exception e) {
+                    MultiWorldPositions.LOGGER.error("[MWP] Failed to read portal links from {}", file, e);
+                }
+            }
+        } catch (IOException e) {
+            MultiWorldPositions.LOGGER.error("[MWP] Failed to list portal links", e);
+        }
+    }
+
+    private static void save(String groupId, Map<String, Endpoint> links) {
+        List<Entry> entries = new ArrayList<>();
+        for (Map.Entry<String, Endpoint> link : links.entrySet()) {
+            String fromKey = link.getKey();
+            BlockPos from = parsePos(fromKey);
+            Entry e = new Entry();
+            e.fromDim = fromKey.substring(0, fromKey.indexOf('|'));
+            e.fromX = from.getX(); e.fromY = from.getY(); e.fromZ = from.getZ();
+            e.toDim = link.getValue().dim;
+            e.toX = link.getValue().pos.getX(); e.toY = link.getValue().pos.getY(); e.toZ = link.getValue().pos.getZ();
+            entries.add(e);
+        }
+        LinkFile stored = new LinkFile();
+        stored.groupId = groupId;
+        stored.links = entries;
+        try {
+            Files.writeString(fileFor(groupId), GSON.toJson(stored));
+        } catch (IOException e) {
+            MultiWorldPositions.LOGGER.error("[MWP] Failed to write portal links for group {}", groupId, e);
+        }
+    }
+}
@@ -1,16 +1,364 @@
 package com.yarg.mwpositions;
 
-import java.util.concurrent.ConcurrentHashMap;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
- * 1.21.9 overlay: Minimal stub to provide portal transfer suppression without custom portal logic.
+ * 1.21.9 overlay: event-driven group portal engine. Portal collision callbacks (see EntityMixin) mark a
+ * player as in-portal; only those players are checked each tick, so idle players cost nothing.
  */
 public class PortalLinkService {
-    private static final java.util.Set<java.util.UUID> suppressNextRestore = java.util.Collections.newSetFromMap(new ConcurrentHashMap<>());
-    public static void markPortalTransfer(java.util.UUID id) { suppressNextRestore.add(id); }
-    public static boolean consumePortalTransfer(java.util.UUID id) { return suppressNextRestore.remove(id); }
+    private static final long COOLDOWN_TICKS = 60; // ~3s at 20 tps
+
+    private final Map<RegistryKey<World>, String> dimKeys = new IdentityHashMap<>();
+    // Only players whose portal collision fired recently are visited, within the per-tick budget
+    private final PlayerTickScheduler scheduler = new PlayerTickScheduler();
+    private final PlayerTickScheduler.PlayerTask tickPlayerTask = this::tickPlayer;
+
+    public void tick(MinecraftServer server) {
+        scheduler.tick(server, tickPlayerTask);
+    }
+
+    /** Called on the first portal collision of a tick (contact and warm-up are recorded in the session). */
+    public void onPortalContact(ServerPlayerEntity p, PortalKind kind) {
+        scheduler.add(p.getUuid());
+    }
+
+    private void tickPlayer(ServerPlayerEntity p) {
+        ModConfig cfg = MultiWorldPositions.getConfig();
+        String fromDim = dimKey(p.getEntityWorld());
+        // Skip hubs
+        if (cfg.isHubWorld(fromDim)) { scheduler.remove(p.getUuid()); return; }
+        WorldGroup g = cfg.findGroupByMember(fromDim);
+        if (g == null) { scheduler.remove(p.getUuid()); return; }
+
+        boolean handled = false;
+        long now = p.getCommandSource().getServer().getTicks();
+        PlayerSession s = PlayerSession.of(p);
+        boolean inPortal = s.touching(PortalKind.NETHER, now);
+        boolean inEndPortal = s.touching(PortalKind.END, now);
+        // No portal checks while the previous move is still completing
+        if (s.teleportsPending > 0) return;
+        if (!inPortal && !inEndPortal) {
+            scheduler.remove(p.getUuid());
+            // Left the portal before the transfer: release the destination warm-up
+            MultiWorldPositions.getArrivalPreloader().cancelWarm(p.getUuid());
+            return;
+        }
+        if (cooldownOk(p, inPortal ? PortalKind.NETHER : PortalKind.END)) {
+            warmUp(p, g, fromDim, inPortal, inEndPortal);
+        } else {
+            // Still in the portal just used: nothing to warm until the cooldown lets another trip through
+            MultiWorldPositions.getArrivalPreloader().cancelWarm(p.getUuid());
+        }
+
+        if (g.linkPortals != null && g.linkPortals.nether && inPortal) {
+            if (s.portalWarmupTicks >= cfg.portalWarmupTicks) {
+                handled = handleNetherPortal(p, g, fromDim);
+            }
+        }
+        // Fallback: only when enabled AND standing in lit portal AND complete frame detected
+        if (!handled && g.linkPortals != null && g.linkPortals.nether && cfg.fallbackDetectFrames && inPortal) {
+            var fb = PortalFrameUtils.findNetherFrameBounds(p.getEntityWorld(), p.getBlockPos());
+            if (fb != null) {
+                if (s.portalWarmupTicks >= cfg.portalWarmupTicks) {
+                    handled = handleNetherPortal(p, g, fromDim);
+                }
+            }
+        }
+        if (!handled && g.linkPortals != null && g.linkPortals.end && inEndPortal) {
+            handleEndPortal(p, g, fromDim);
+        }
+    }
+
+    private boolean handleNetherPortal(ServerPlayerEntity player, WorldGroup group, String fromDim) {
+        if (!cooldownOk(player, PortalKind.NETHER)) return false;
+        long resolveStart = System.nanoTime();
+        String targetDim = MultiWorldPositions.getConfig().nextForPortal(group, fromDim, PortalKind.NETHER);
+        if (targetDim == null) {
+            if (MultiWorldPositions.getConfig().debugMode) {
+                MultiWorldPositions.LOGGER.debug("[MWP] PortalLink(Nether): no target for fromDim={} in group {} (overworld={}, nether={})",
+                        fromDim, group.id, group.overworld, group.nether);
+            }
+            return false;
+        }
+        if (MultiWorldPositions.getConfig().debugMode) {
+            MultiWorldPositions.LOGGER.debug("[MWP] PortalLink(Nether): fromDim={} -> targetDim={} (group={}, overworld={}, nether={})",
+                    fromDim, targetDim, group.id, group.overworld, group.nether);
+        }
+
+        // Which portal the player is standing in, for the link cache (read before leaving the world)
+        ServerWorld fromWorld = player.getEntityWorld();
+        BlockPos fromCell = PortalLinkCache.portalCellAt(fromWorld, player.getBlockPos());
+        PositionData pos = computeNetherLinkedCoords(player, group, fromDim);
+        PositionData arrival = netherArrival(group, fromDim, targetDim, fromCell, pos);
+        // Destination chunks load in the background from the start of the warm-up; the player stays in the portal until they are ready
+        if (!MultiWorldPositions.getArrivalPreloader().ready(player, targetDim, arrival)) return false;
+        // Portal trips take the first share of the tick's transfer budget
+        if (!MultiWorldPositions.getTransferQueue().admitPortal()) return false;
+        TransferPipeline.Run run = MultiWorldPositions.getTransferPipeline().begin(player, TransferPipeline.Type.NETHER_PORTAL, resolveStart);
+        run.lap(TransferPipeline.Stage.RESOLVE);
+
+        // Inline inventory swap for robustness
+        InventoryStorage inv = MultiWorldPositions.getInventoryStorage();
+        ModConfig cfg = MultiWorldPositions.getConfig();
+        String originGroup = cfg.resolveInventoryGroupId(fromDim);
+        boolean originProfile = false;
+        if (group != null) originProfile = group.inventoryProfile;
+        else if ("__default".equals(originGroup)) originProfile = cfg.inventoryProfileForDefaultWorlds;
+        else if ("__ungrouped".equals(originGroup)) originProfile = cfg.inventoryProfileForUngrouped;
+        if (originGroup != null && originProfile) {
+            MultiWorldPositions.LOGGER.debug("[MWP] InvSwap: save origin group {} for {}", originGroup, player.getName().getString());
+            run.stage(TransferPipeline.Stage.SAVE_INVENTORY, () -> inv.saveForGroup(player, originGroup));
+        }
+
+        DimensionChangeListener.beginTransfer(player);
+        // The cooldown starts with the move, so the portal does not send the player again while it completes
+        setCooldown(player, PortalKind.NETHER);
+        run.hold();
+        // Arrive where the warm-up loaded (linked portal or linked coordinates) rather than at the origin's coordinates
+        run.async(TransferPipeline.Stage.TELEPORT, MultiWorldPositions.teleportAsync(player, targetDim, arrival)).thenAccept(result -> {
+            try {
+                if (!result.success || player.isDisconnected()) {
+                    run.abandon();
+                    return;
+                }
+                MultiWorldPositions.getArrivalPreloader().cancelWarm(player.getUuid());
+                // Update last visited member for this group immediately
+                WorldGroup gg = MultiWorldPositions.getConfig().findGroupByMember(targetDim);
+                if (gg != null && gg.id != null) {
+                    MultiWorldPositions.getPositionStorage().setLastGroupMember(player.getUuid(), gg.id, targetDim);
+                }
+                // After cross-dim hop, load destination inventory if profiled
+                String destGroup = cfg.resolveInventoryGroupId(targetDim);
+                boolean destProfile = false;
+                if (group != null) destProfile = group.inventoryProfile;
+                else if ("__default".equals(destGroup)) destProfile = cfg.inventoryProfileForDefaultWorlds;
+                else if ("__ungrouped".equals(destGroup)) destProfile = cfg.inventoryProfileForUngrouped;
+                if (destGroup != null && destProfile) {
+                    MultiWorldPositions.LOGGER.debug("[MWP] InvSwap: load dest group {} for {}", destGroup, player.getName().getString());
+                    run.stage(TransferPipeline.Stage.LOAD_INVENTORY, () -> inv.loadForGroup(player, destGroup));
+                }
+                // Ensure a return portal exists (or snap to nearest) in the destination world
+                try {
+                    if (cfg.createReturnPortal) {
+                        // Repeat trip through a known portal pair: no search at all
+                        PortalLinkCache links = MultiWorldPositions.getPortalLinkCache();
+                        BlockPos linked = run.stage(TransferPipeline.Stage.FIND_PORTAL, () -> links.verified(group.id, fromDim, fromCell, player.getEntityWorld()));
+                        if (linked != null) {
+                            PositionData spot = run.stage(TransferPipeline.Stage.FIND_SAFE_SPOT, () -> SafeLocationFinder.findSafeNear(player, targetDim, pos, linked));
+                            run.stage(TransferPipeline.Stage.PLACE, () -> TeleportPlacement.placePlayerSafely(player, targetDim, spot));
+                            setCooldown(player, PortalKind.NETHER);
+                            run.stage(TransferPipeline.Stage.PERSIST, () -> MultiWorldPositions.getPositionStorage().savePlayerData(player.getUuid()));
+                            return;
+                        }
+                        var axisPref = PortalSpawnHelper.yawToAxis(player.getYaw());
+                        PortalFrameUtils.FrameBounds preferred = new PortalFrameUtils.FrameBounds(axisPref, 0, 0, 0, 0, 0, 0);
+                        int searchRadius = 128; // vanilla closest-portal search radius
+                        // Search runs once chunks are loaded; the player is held in place until then.
+                        // Cooldown starts now so a portal at the parking spot cannot bounce them back.
+                        setCooldown(player, PortalKind.NETHER);
+                        MultiWorldPositions.getReturnPortalResolver().placeAtReturnPortal(player, targetDim, pos, preferred, searchRadius, run, cell -> {
+                            links.link(group.id, fromWorld, fromCell, player.getEntityWorld(), cell);
+                            setCooldown(player, PortalKind.NETHER);
+                            run.stage(TransferPipeline.Stage.PERSIST, () -> MultiWorldPositions.getPositionStorage().savePlayerData(player.getUuid()));
+                        });
+                        return; // early return; placement happens once the portal is resolved
+                    }
+                } catch (Throwable t) {
+                    if (cfg.debugMode) {
+                        MultiWorldPositions.LOGGER.debug("[MWP] ensureReturnPortal scheduling failed: {}", t.toString());
+                    }
+                }
+                // If not creating/scheduling return portal, place immediately
+                run.stage(TransferPipeline.Stage.PLACE, () -> TeleportPlacement.placePlayerSafely(player, targetDim, pos));
+                setCooldown(player, PortalKind.NETHER);
+                run.stage(TransferPipeline.Stage.PERSIST, () -> MultiWorldPositions.getPositionStorage().savePlayerData(player.getUuid()));
+            } finally {
+                run.release();
+            }
+        });
+        // Recorded once the move has completed and the player is placed
+        run.finish();
+        return true;
+    }
+
+    private boolean handleEndPortal(ServerPlayerEntity player, WorldGroup group, String fromDim) {
+        if (!cooldownOk(player, PortalKind.END)) return false;
+        long resolveStart = System.nanoTime();
+        String targetDim = MultiWorldPositions.getConfig().nextForPortal(group, fromDim, PortalKind.END);
+        if (targetDim == null) {
+            if (MultiWorldPositions.getConfig().debugMode) {
+                MultiWorldPositions.LOGGER.debug("[MWP] PortalLink(End): no target for fromDim={} in group {} (overworld={}, end={})",
+                        fromDim, group.id, group.overworld, group.end);
+            }
+            return false;
+        }
+        if (MultiWorldPositions.getConfig().debugMode) {
+            MultiWorldPositions.LOGGER.debug("[MWP] PortalLink(End): fromDim={} -> targetDim={} (group={}, overworld={}, end={})",
+                    fromDim, targetDim, group.id, group.overworld, group.end);
+        }
+
+        PositionData pos = computeEndLinkedCoords(player, group, fromDim);
+        if (!MultiWorldPositions.getArrivalPreloader().ready(player, targetDim, pos)) return false;
+        // Portal trips take the first share of the tick's transfer budget
+        if (!MultiWorldPositions.getTransferQueue().admitPortal()) return false;
+        TransferPipeline.Run run = MultiWorldPositions.getTransferPipeline().begin(player, TransferPipeline.Type.END_PORTAL, resolveStart);
+        run.lap(TransferPipeline.Stage.RESOLVE);
+
+        // Inline inventory swap for robustness
+        InventoryStorage inv = MultiWorldPositions.getInventoryStorage();
+        ModConfig cfg = MultiWorldPositions.getConfig();
+        String originGroup = cfg.resolveInventoryGroupId(fromDim);
+        boolean originProfile = false;
+        if (group != null) originProfile = group.inventoryProfile;
+        else if ("__default".equals(originGroup)) originProfile = cfg.inventoryProfileForDefaultWorlds;
+        else if ("__ungrouped".equals(originGroup)) originProfile = cfg.inventoryProfileForUngrouped;
+        if (originGroup != null && originProfile) {
+            MultiWorldPositions.LOGGER.debug("[MWP] InvSwap: save origin group {} for {}", originGroup, player.getName().getString());
+            run.stage(TransferPipeline.Stage.SAVE_INVENTORY, () -> inv.saveForGroup(player, originGroup));
+        }
+
+        DimensionChangeListener.beginTransfer(player);
+        // The cooldown starts with the move, so the portal does not send the player again while it completes
+        setCooldown(player, PortalKind.END);
+        run.hold();
+        run.async(TransferPipeline.Stage.TELEPORT, MultiWorldPositions.teleportAsync(player, targetDim, pos)).thenAccept(result -> {
+            try {
+                if (!result.success || player.isDisconnected()) {
+                    run.abandon();
+                    return;
+                }
+                MultiWorldPositions.getArrivalPreloader().cancelWarm(player.getUuid());
+                // Update last visited member for this group immediately
+                WorldGroup gg = MultiWorldPositions.getConfig().findGroupByMember(targetDim);
+                if (gg != null && gg.id != null) {
+                    MultiWorldPositions.getPositionStorage().setLastGroupMember(player.getUuid(), gg.id, targetDim);
+                }
+                String destGroup = cfg.resolveInventoryGroupId(targetDim);
+                boolean destProfile = false;
+                if (group != null) destProfile = group.inventoryProfile;
+                else if ("__default".equals(destGroup)) destProfile = cfg.inventoryProfileForDefaultWorlds;
+                else if ("__ungrouped".equals(destGroup)) destProfile = cfg.inventoryProfileForUngrouped;
+                if (destGroup != null && destProfile) {
+                    MultiWorldPositions.LOGGER.debug("[MWP] InvSwap: load dest group {} for {}", destGroup, player.getName().getString());
+                    run.stage(TransferPipeline.Stage.LOAD_INVENTORY, () -> inv.loadForGroup(player, destGroup));
+                }
+                // Build/ensure a platform in the End and optionally spawn the dragon, then place safely
+                PositionData landing = pos;
+                try {
+                    ServerWorld targetWorld = player.getEntityWorld();
+                    var desired = net.minecraft.util.math.BlockPos.ofFloored(pos.x, pos.y, pos.z);
+                    if (cfg.endCreateArrivalPlatform) {
+                        var platformTop = run.stage(TransferPipeline.Stage.FIND_PORTAL, () -> EndArrivalHelper.ensureArrivalPlatform(targetWorld, desired));
+                        if (cfg.endSpawnDragonOnArrival) {
+                            EndArrivalHelper.spawnDragonIfEnabled(targetWorld);
+                        }
+                        landing = new PositionData(platformTop.getX() + 0.5, platformTop.getY(), platformTop.getZ() + 0.5, player.getYaw(), player.getPitch());
+                    }
+                } catch (Throwable t) {
+                    if (cfg.debugMode) {
+                        MultiWorldPositions.LOGGER.debug("[MWP] End arrival platform setup failed: {}", t.toString());
+                    }
+                }
+                PositionData spot = landing;
+                run.stage(TransferPipeline.Stage.PLACE, () -> TeleportPlacement.placePlayerSafely(player, targetDim, spot));
+                setCooldown(player, PortalKind.END);
+                run.stage(TransferPipeline.Stage.PERSIST, () -> MultiWorldPositions.getPositionStorage().savePlayerData(player.getUuid()));
+            } finally {
+                run.release();
+            }
+        });
+        // Recorded once the move has completed and the player is placed
+        run.finish();
+        return true;
+    }
+
+    private String dimKey(World w) {
+        return dimKeys.computeIfAbsent(w.getRegistryKey(), k -> k.getValue().toString());
+    }
+
+    /**
+     * The destination of a portal is known from the first contact, so its chunks (and for Nether portals the
+     * return-portal search area) start loading while the warm-up runs instead of on the transfer tick.
+     */
+    private void warmUp(ServerPlayerEntity p, WorldGroup g, String fromDim, boolean inPortal, boolean inEndPortal) {
+        if (g.linkPortals == null) return;
+        ModConfig cfg = MultiWorldPositions.getConfig();
+        ArrivalPreloader preloader = MultiWorldPositions.getArrivalPreloader();
+        // Standing still in the portal: the destination is the one already warming, so recompute nothing
+        PlayerSession s = PlayerSession.of(p);
+        long block = p.getBlockPos().asLong();
+        RegistryKey<World> worldKey = p.getEntityWorld().getRegistryKey();
+        if (s.warmBlock == block && s.warmWorldKey == worldKey && preloader.isWarming(p.getUuid())) return;
+        s.warmBlock = block;
+        s.warmWorldKey = worldKey;
+        if (inPortal && g.linkPortals.nether) {
+            String targetDim = cfg.nextForPortal(g, fromDim, PortalKind.NETHER);
+            if (targetDim == null) return;
+            BlockPos fromCell = PortalLinkCache.portalCellAt(p.getEntityWorld(), p.getBlockPos());
+            PositionData pos = computeNetherLinkedCoords(p, g, fromDim);
+            PositionData arrival = netherArrival(g, fromDim, targetDim, fromCell, pos);
+            if (preloader.warm(p, targetDim, arrival) && arrival == pos && cfg.createReturnPortal) {
+                ServerWorld targetWorld = p.getCommandSource().getServer().getWorld(RegistryKey.of(RegistryKeys.WORLD, Identifier.of(targetDim)));
+                if (targetWorld != null) {
+                    MultiWorldPositions.getReturnPortalResolver().prefetch(p.getUuid(), targetWorld, BlockPos.ofFloored(pos.x, pos.y, pos.z), 128);
+                }
+            }
+        } else if (inEndPortal && g.linkPortals.end) {
+            String targetDim = cfg.nextForPortal(g, fromDim, PortalKind.END);
+            if (targetDim != null) preloader.warm(p, targetDim, computeEndLinkedCoords(p, g, fromDim));
+        }
+    }
+
+    // Next to the linked portal when the pair is known (not verified yet), else the scaled coordinates
+    private static PositionData netherArrival(WorldGroup g, String fromDim, String targetDim, BlockPos fromCell, PositionData pos) {
+        BlockPos linked = MultiWorldPositions.getPortalLinkCache().linked(g.id, fromDim, fromCell, targetDim);
+        if (linked == null) return pos;
+        return new PositionData(linked.getX() + 0.5, linked.getY(), linked.getZ() + 0.5, pos.yaw, pos.pitch);
+    }
+
+    private PositionData computeNetherLinkedCoords(ServerPlayerEntity p, WorldGroup g, String fromDim) {
+        double x = p.getX();
+        double y = p.getY(); // Y is 1:1 in vanilla
+        double z = p.getZ();
+
+        ModConfig cfg = MultiWorldPositions.getConfig();
+        boolean fromIsOW = cfg.isGroupOverworld(g, fromDim);
+
+        // Vanilla scale: Overworld -> Nether = 0.125; Nether -> Overworld = 8.0
+        double scale = fromIsOW ? 0.125 : 8.0;
+
+        return new PositionData(x * scale, y, z * scale, p.getYaw(), p.getPitch());
+    }
+
+    private PositionData computeEndLinkedCoords(ServerPlayerEntity p, WorldGroup g, String fromDim) {
+        return new PositionData(p.getX(), p.getY(), p.getZ(), p.getYaw(), p.getPitch());
+    }
+
+    private boolean cooldownOk(ServerPlayerEntity p, PortalKind kind) {
+        long tick = p.getCommandSource().getServer().getTicks();
+        PlayerSession s = PlayerSession.of(p);
+        long last = (kind == PortalKind.NETHER) ? s.netherCooldownTick : s.endCooldownTick;
+        return last == PlayerSession.NEVER || (tick - last) >= COOLDOWN_TICKS;
+    }
 
-    public void tick(net.minecraft.server.MinecraftServer server) {
-        // no-op: custom portal logic disabled in this overlay
+    private void setCooldown(ServerPlayerEntity p, PortalKind kind) {
+        long tick = p.getCommandSource().getServer().getTicks();
+        PlayerSession s = PlayerSession.of(p);
+        if (kind == PortalKind.NETHER) {
+            s.netherCooldownTick = tick;
+        } else {
+            s.endCooldownTick = tick;
+        }
     }
 }
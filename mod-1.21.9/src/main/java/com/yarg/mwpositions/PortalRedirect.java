@@ -0,0 +1,99 @@
+package com.yarg.mwpositions;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.TeleportTarget;
+import net.minecraft.world.World;
+import net.minecraft.world.gen.feature.EndPlatformFeature;
+
+/**
+ * Decides where a vanilla portal should send a player standing in a group world, so the portal's own
+ * teleport target already points into the group's linked world (one dimension change instead of a
+ * vanilla hop followed by a correction teleport). Used by the portal block mixins, and only while
+ * {@code enablePortals} is off: with it on, PortalLinkService owns the trip and vanilla's target is
+ * left untouched.
+ */
+public final class PortalRedirect {
+    private PortalRedirect() {}
+
+    /** Group world the portal should lead to, or null to keep vanilla's destination. */
+    public static ServerWorld destinationFor(ServerWorld from, Entity entity, PortalKind kind) {
+        ModConfig cfg = MultiWorldPositions.getConfig();
+        if (cfg == null || cfg.enablePortals || !(entity instanceof ServerPlayerEntity)) return null;
+        String fromDim = from.getRegistryKey().getValue().toString();
+        WorldGroup g = cfg.findGroupByMember(fromDim);
+        if (g == null || g.linkPortals == null) return null;
+        if (kind == PortalKind.NETHER ? !g.linkPortals.nether : !g.linkPortals.end) return null;
+        String targetDim = cfg.nextForPortal(g, fromDim, kind);
+        if (targetDim == null) return null;
+        RegistryKey<World> key = RegistryKey.of(RegistryKeys.WORLD, Identifier.of(targetDim));
+        if (key == vanillaDestination(from, kind)) return null; // vanilla already goes there
+        ServerWorld dest = from.getServer().getWorld(key);
+        if (dest != null && cfg.debugMode) {
+            MultiWorldPositions.LOGGER.debug("[MWP] PortalRedirect({}): {} -> {} for {}", kind, fromDim, targetDim,
+                    ((ServerPlayerEntity) entity).getName().getString());
+        }
+        return dest;
+    }
+
+    /**
+     * Marks a redirected portal trip as the mod's own move, so its arrival keeps the portal exit instead of
+     * being restored or redirected, and returns the target unchanged. Without a target there is no trip.
+     */
+    public static TeleportTarget departing(Entity entity, TeleportTarget target) {
+        ServerPlayerEntity player = (ServerPlayerEntity) entity;
+        return departing(PlayerSession.of(player), player.getCommandSource().getServer().getTicks(), target);
+    }
+
+    static TeleportTarget departing(PlayerSession session, long now, TeleportTarget target) {
+        if (target != null) session.beginTransfer(now);
+        return target;
+    }
+
+    /** True if the Nether portal leads from the group's overworld (so the destination is its nether). */
+    public static boolean leavesGroupOverworld(ServerWorld from) {
+        ModConfig cfg = MultiWorldPositions.getConfig();
+        String fromDim = from.getRegistryKey().getValue().toString();
+        return cfg.isGroupOverworld(cfg.findGroupByMember(fromDim), fromDim);
+    }
+
+    /**
+     * End portal target into a group world: the End-bound leg lands on an arrival platform (the mod's,
+     * when enabled, else vanilla's obsidian one); the way back lands at the group overworld's spawn.
+     */
+    public static TeleportTarget endTarget(ServerWorld from, ServerWorld dest, Entity entity) {
+        ModConfig cfg = MultiWorldPositions.getConfig();
+        WorldGroup g = cfg.findGroupByMember(from.getRegistryKey().getValue().toString());
+        boolean toEnd = g != null && dest.getRegistryKey().getValue().toString().equals(g.end);
+        Vec3d arrival;
+        float yaw = entity.getYaw();
+        if (toEnd) {
+            if (cfg.endCreateArrivalPlatform) {
+                arrival = Vec3d.ofBottomCenter(EndArrivalHelper.ensureArrivalPlatform(dest, ServerWorld.END_SPAWN_POS));
+            } else {
+                // Same platform and facing as vanilla's End arrival; players stand one block lower
+                arrival = ServerWorld.END_SPAWN_POS.toBottomCenterPos();
+                EndPlatformFeature.generate(dest, BlockPos.ofFloored(arrival).down(), true);
+                arrival = arrival.subtract(0.0, 1.0, 0.0);
+            }
+            yaw = Direction.WEST.asRotation();
+            EndArrivalHelper.spawnDragonIfEnabled(dest);
+        } else {
+            arrival = entity.getWorldSpawnPos(dest, dest.getSpawnPoint().getPos()).toBottomCenterPos();
+        }
+        return new TeleportTarget(dest, arrival, entity.getVelocity(), yaw, entity.getPitch(),
+                TeleportTarget.SEND_TRAVEL_THROUGH_PORTAL_PACKET.then(TeleportTarget.ADD_PORTAL_CHUNK_TICKET));
+    }
+
+    private static RegistryKey<World> vanillaDestination(ServerWorld from, PortalKind kind) {
+        if (kind == PortalKind.NETHER) return from.getRegistryKey() == World.NETHER ? World.OVERWORLD : World.NETHER;
+        return from.getRegistryKey() == World.END ? World.OVERWORLD : World.END;
+    }
+}
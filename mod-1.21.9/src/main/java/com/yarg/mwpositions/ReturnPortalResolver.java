@@ -0,0 +1,241 @@
+package com.yarg.mwpositions;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ChunkTicketType;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Resolves return portals off the critical path. Where the portal will be is worked out from the
+ * portal registry and the POI index first; only that site (or the build site when there is no portal)
+ * is ticketed and loaded in the background, and its ticket is dropped once the search is done. One
+ * build runs per destination region (everyone else arriving there picks the portal nearest to them
+ * once it is done), and the player is held in place until placement. All methods and continuations
+ * run on the server thread.
+ */
+public final class ReturnPortalResolver {
+    // 128-block regions: arrivals in the same region share one search
+    private static final int REGION_SHIFT = 7;
+    // The site's chunk and its neighbours: the portal (or the frame built there) and the safe spot beside it
+    private static final int SITE_TICKET_RADIUS = 1;
+    // Stop holding a player after 10s even if the search has not finished
+    private static final int MAX_PARK_TICKS = 200;
+    // A site's ticket outlives its search by a second, so the player placed there holds the area by then
+    private static final int RELEASE_DELAY_TICKS = 20;
+
+    // A ticketed chunk a search will read; completes once it and its neighbours are loaded
+    private static final class Site {
+        final ServerWorld world;
+        final ChunkPos chunk;
+        final String key;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        int ticksLeft = MAX_PARK_TICKS;
+        int releaseIn = RELEASE_DELAY_TICKS;
+
+        Site(ServerWorld world, ChunkPos chunk) {
+            this.world = world;
+            this.chunk = chunk;
+            this.key = world.getRegistryKey().getValue() + "@" + chunk.x + "," + chunk.z;
+        }
+
+        boolean loaded() {
+            for (int cx = chunk.x - SITE_TICKET_RADIUS; cx <= chunk.x + SITE_TICKET_RADIUS; cx++) {
+                for (int cz = chunk.z - SITE_TICKET_RADIUS; cz <= chunk.z + SITE_TICKET_RADIUS; cz++) {
+                    if (!world.getChunkManager().isChunkLoaded(cx, cz)) return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Parked {
+        final ServerWorld world;
+        final double x, y, z;
+        int ticksLeft = MAX_PARK_TICKS;
+
+        Parked(ServerWorld world, double x, double y, double z) {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+    }
+
+    private final Map<String, CompletableFuture<BlockPos>> inFlight = new HashMap<>();
+    private final Map<UUID, Parked> parked = new HashMap<>();
+    // Sites still loading, sites whose search is done, and how many holders each site's ticket has
+    private final List<Site> loading = new ArrayList<>();
+    private final List<Site> releasing = new ArrayList<>();
+    private final Map<String, Integer> siteRefs = new HashMap<>();
+    private final Map<UUID, Site> prefetched = new HashMap<>();
+
+    /**
+     * Returns the portal cell nearest to 'near' (building one if needed), completing on the server thread.
+     * Concurrent requests for the same dimension and region share a single build; each joiner then looks
+     * up the portal nearest to its own 'near', falling back to the shared result.
+     */
+    public CompletableFuture<BlockPos> resolve(ServerWorld world, BlockPos near, PortalFrameUtils.FrameBounds preferred, int searchRadius) {
+        String key = world.getRegistryKey().getValue() + "@" + (near.getX() >> REGION_SHIFT) + "," + (near.getZ() >> REGION_SHIFT);
+        MinecraftServer server = world.getServer();
+        Site site = loadSite(world, expectedSite(world, near, searchRadius));
+        CompletableFuture<BlockPos> result;
+        CompletableFuture<BlockPos> shared = inFlight.get(key);
+        if (shared != null) {
+            if (MultiWorldPositions.getConfig().debugMode) {
+                MultiWorldPositions.LOGGER.debug("[MWP] ReturnPortal: joining in-flight search {}", key);
+            }
+            result = shared.thenCombineAsync(site.done, (cell, v) -> {
+                BlockPos mine = PortalBuilder.findExistingPortal(world, near, searchRadius);
+                return (mine != null) ? mine : cell;
+            }, server);
+        } else {
+            CompletableFuture<BlockPos> search = site.done
+                    .thenApplyAsync(v -> PortalBuilder.ensureReturnPortal(world, near, preferred, searchRadius), server);
+            inFlight.put(key, search);
+            search.whenCompleteAsync((cell, t) -> inFlight.remove(key, search), server);
+            result = search;
+        }
+        result.whenCompleteAsync((cell, t) -> releaseLater(site), server);
+        return result;
+    }
+
+    /**
+     * Loads the site a later resolve around 'near' will read while the player warms up in a portal,
+     * replacing their previous prefetch. Nothing is loaded when a portal would be built at 'near', as the
+     * arrival warm-up covers it. Held until cancelPrefetch (the warm-up ending, see ArrivalPreloader).
+     */
+    public void prefetch(UUID playerId, ServerWorld world, BlockPos near, int searchRadius) {
+        cancelPrefetch(playerId);
+        BlockPos expected = PortalBuilder.candidateSite(world, near, searchRadius);
+        if (expected != null) prefetched.put(playerId, loadSite(world, expected));
+    }
+
+    /** Drops the player's prefetched site; its ticket goes once nothing else holds it. */
+    public void cancelPrefetch(UUID playerId) {
+        Site site = prefetched.remove(playerId);
+        if (site != null) release(site);
+    }
+
+    /**
+     * Holds the player where they arrived, resolves the return portal, then places them next to it
+     * (or at the safe spot near 'desired' when resolution fails) and hands the portal cell (null on failure) to 'after'.
+     * The steps are timed as stages of 'run', which stays open until 'after' has run.
+     */
+    public void placeAtReturnPortal(ServerPlayerEntity player, String targetDim, PositionData desired,
+                                    PortalFrameUtils.FrameBounds preferred, int searchRadius,
+                                    TransferPipeline.Run run, Consumer<BlockPos> after) {
+        ServerWorld targetWorld = player.getEntityWorld();
+        park(player);
+        run.hold();
+        run.async(TransferPipeline.Stage.FIND_PORTAL, resolve(targetWorld, BlockPos.ofFloored(desired.x, desired.y, desired.z), preferred, searchRadius))
+                .whenCompleteAsync((cell, t) -> {
+                    parked.remove(player.getUuid());
+                    try {
+                        if (player.isDisconnected() || player.getEntityWorld() != targetWorld) return;
+                        if (t != null && MultiWorldPositions.getConfig().debugMode) {
+                            MultiWorldPositions.LOGGER.debug("[MWP] ReturnPortal: resolution failed: {}", t.toString());
+                        }
+                        PositionData finalPos = run.stage(TransferPipeline.Stage.FIND_SAFE_SPOT, () -> (cell != null)
+                                ? SafeLocationFinder.findSafeNear(player, targetDim, desired, cell)
+                                : SafeLocationFinder.findSafe(player, targetDim, desired));
+                        run.stage(TransferPipeline.Stage.PLACE, () -> TeleportPlacement.placePlayerSafely(player, targetDim, finalPos));
+                        if (after != null) after.accept(cell);
+                    } finally {
+                        run.release();
+                    }
+                }, targetWorld.getServer());
+    }
+
+    /**
+     * Completes sites that finished loading (or waited too long: the search then loads the rest itself),
+     * drops the tickets of finished searches, and keeps parked players still and fall-free while their
+     * destination is being resolved.
+     */
+    public void tick() {
+        if (!loading.isEmpty()) {
+            List<Site> loaded = new ArrayList<>();
+            for (Iterator<Site> it = loading.iterator(); it.hasNext(); ) {
+                Site site = it.next();
+                if (site.loaded() || --site.ticksLeft <= 0) {
+                    it.remove();
+                    loaded.add(site);
+                }
+            }
+            // Completion runs the searches, which may load new sites
+            for (Site site : loaded) site.done.complete(null);
+        }
+        for (Iterator<Site> it = releasing.iterator(); it.hasNext(); ) {
+            Site site = it.next();
+            if (--site.releaseIn <= 0) {
+                it.remove();
+                release(site);
+            }
+        }
+        if (parked.isEmpty()) return;
+        for (Iterator<Map.Entry<UUID, Parked>> it = parked.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<UUID, Parked> e = it.next();
+            Parked pk = e.getValue();
+            ServerPlayerEntity p = pk.world.getServer().getPlayerManager().getPlayer(e.getKey());
+            if (p == null || p.getEntityWorld() != pk.world || --pk.ticksLeft <= 0) {
+                it.remove();
+                continue;
+            }
+            p.setVelocity(0, 0, 0);
+            p.velocityModified = true;
+            p.fallDistance = 0f;
+            if (p.squaredDistanceTo(pk.x, pk.y, pk.z) > 0.25) {
+                p.networkHandler.requestTeleport(pk.x, pk.y, pk.z, p.getYaw(), p.getPitch());
+            }
+        }
+    }
+
+    public void unpark(UUID uuid) {
+        parked.remove(uuid);
+    }
+
+    private void park(ServerPlayerEntity player) {
+        parked.put(player.getUuid(), new Parked(player.getEntityWorld(), player.getX(), player.getY(), player.getZ()));
+    }
+
+    // The chunk the search will read: the expected portal, else the build site
+    private static BlockPos expectedSite(ServerWorld world, BlockPos near, int searchRadius) {
+        BlockPos expected = PortalBuilder.candidateSite(world, near, searchRadius);
+        return (expected != null) ? expected : near;
+    }
+
+    private Site loadSite(ServerWorld world, BlockPos pos) {
+        Site site = new Site(world, new ChunkPos(pos));
+        siteRefs.merge(site.key, 1, Integer::sum);
+        // Re-adding refreshes the ticket's expiry for a site that is already held
+        world.getChunkManager().addTicket(ChunkTicketType.PORTAL, site.chunk, SITE_TICKET_RADIUS);
+        if (site.loaded()) {
+            site.done.complete(null);
+        } else {
+            loading.add(site);
+        }
+        return site;
+    }
+
+    private void releaseLater(Site site) {
+        releasing.add(site);
+    }
+
+    // The ticket goes once no search or prefetch holds the site any more
+    private void release(Site site) {
+        int left = siteRefs.merge(site.key, -1, Integer::sum);
+        if (left > 0) return;
+        siteRefs.remove(site.key);
+        site.world.getChunkManager().removeTicket(ChunkTicketType.PORTAL, site.chunk, SITE_TICKET_RADIUS);
+    }
+}
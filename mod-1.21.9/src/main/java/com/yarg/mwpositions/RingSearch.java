@@ -0,0 +1,67 @@
+package com.yarg.mwpositions;
+
+import java.util.Comparator;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Nearest-first search over a square grid: cells are visited in square rings of growing radius
+ * around a center, so every cell is visited once and the search can stop as soon as no closer
+ * result is possible.
+ */
+public final class RingSearch {
+    private RingSearch() {}
+
+    /** Looks at one grid cell; returns its result or null. */
+    public interface CellVisitor<T> {
+        T visit(int x, int z);
+    }
+
+    /**
+     * First hit on the ring at Chebyshev radius r, visiting cells in the same dx-then-dz order as a
+     * full square scan would, but skipping the inner cells.
+     */
+    public static <T> T ring(int cx, int cz, int r, CellVisitor<T> visitor) {
+        for (int dx = -r; dx <= r; dx++) {
+            // Edge rows are walked in full, inner rows only touch their two ends
+            int step = (dx == -r || dx == r) ? 1 : 2 * r;
+            for (int dz = -r; dz <= r; dz += step) {
+                T hit = visitor.visit(cx + dx, cz + dz);
+                if (hit != null) return hit;
+            }
+        }
+        return null;
+    }
+
+    /** First hit scanning rings 0..maxRadius outward (the closest ring wins). */
+    public static <T> T firstOutward(int cx, int cz, int maxRadius, CellVisitor<T> visitor) {
+        for (int r = 0; r <= maxRadius; r++) {
+            T hit = ring(cx, cz, r, visitor);
+            if (hit != null) return hit;
+        }
+        return null;
+    }
+
+    /**
+     * Best result by 'order' over rings of cells cellSize blocks wide, where each cell reports its own best
+     * candidate. Stops once a whole ring lies farther away (by squared block distance 'dist2' from a point
+     * inside the center cell) than the best candidate found so far, so results match a full scan.
+     */
+    public static <T> T nearest(int cx, int cz, int maxRadius, int cellSize, CellVisitor<T> visitor,
+                                ToDoubleFunction<T> dist2, Comparator<T> order) {
+        T best = null;
+        for (int r = 0; r <= maxRadius; r++) {
+            if (best != null && r > 0) {
+                double gap = (double) (r - 1) * cellSize;
+                if (gap * gap > dist2.applyAsDouble(best)) break;
+            }
+            for (int dx = -r; dx <= r; dx++) {
+                int step = (dx == -r || dx == r) ? 1 : 2 * r;
+                for (int dz = -r; dz <= r; dz += step) {
+                    T hit = visitor.visit(cx + dx, cz + dz);
+                    if (hit != null && (best == null || order.compare(hit, best) < 0)) best = hit;
+                }
+            }
+        }
+        return best;
+    }
+}
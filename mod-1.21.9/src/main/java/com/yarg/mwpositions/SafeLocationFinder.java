@@ -12,7 +12,10 @@ public final class SafeLocationFinder {
     private SafeLocationFinder() {}
 
     public static PositionData findSafe(ServerPlayerEntity player, String targetDim, PositionData desired) {
-        ServerWorld world = (ServerWorld) player.getEntityWorld();
+        return findSafe((ServerWorld) player.getEntityWorld(), desired);
+    }
+
+    public static PositionData findSafe(ServerWorld world, PositionData desired) {
         int cx = (int) Math.floor(desired.x);
         int cy = (int) Math.floor(desired.y);
         int cz = (int) Math.floor(desired.z);
@@ -21,21 +24,18 @@ public final class SafeLocationFinder {
         int minY = world.getBottomY();
         int maxY = minY + world.getDimension().logicalHeight();
 
-        for (int r = 0; r <= maxRadius; r++) {
-            for (int dx = -r; dx <= r; dx++) {
-                for (int dz = -r; dz <= r; dz++) {
-                    int x = cx + dx;
-                    int z = cz + dz;
-                    int fromY = Math.max(minY, cy - 12);
-                    int toY   = Math.min(maxY - 2, cy + 12);
-                    for (int y = fromY; y <= toY; y++) {
-                        if (isTwoTallAirWithSolidFloor(world, x, y, z)) {
-                            return new PositionData(x + 0.5, y, z + 0.5, desired.yaw, desired.pitch);
-                        }
-                    }
+        int fromY = Math.max(minY, cy - 12);
+        int toY   = Math.min(maxY - 2, cy + 12);
+        // Rings outward: inner columns are checked once, and the closest ring still wins
+        PositionData found = RingSearch.firstOutward(cx, cz, maxRadius, (x, z) -> {
+            for (int y = fromY; y <= toY; y++) {
+                if (isTwoTallAirWithSolidFloor(world, x, y, z)) {
+                    return new PositionData(x + 0.5, y, z + 0.5, desired.yaw, desired.pitch);
                 }
             }
-        }
+            return null;
+        });
+        if (found != null) return found;
         BlockPos spawn = world.getSpawnPoint().getPos();
         return new PositionData(spawn.getX() + 0.5, spawn.getY(), spawn.getZ() + 0.5, desired.yaw, desired.pitch);
     }
@@ -53,22 +53,22 @@ public final class SafeLocationFinder {
     }
 
     public static PositionData findSafeNear(ServerPlayerEntity player, String targetDim, PositionData desired, BlockPos prefer) {
-        ServerWorld world = (ServerWorld) player.getEntityWorld();
+        return findSafeNear((ServerWorld) player.getEntityWorld(), desired, prefer);
+    }
+
+    public static PositionData findSafeNear(ServerWorld world, PositionData desired, BlockPos prefer) {
         int cx = prefer.getX();
         int cy = prefer.getY();
         int cz = prefer.getZ();
-        for (int r = 0; r <= 4; r++) {
-            for (int dx = -r; dx <= r; dx++) {
-                for (int dz = -r; dz <= r; dz++) {
-                    for (int dy = -2; dy <= 2; dy++) {
-                        int x = cx + dx, y = cy + dy, z = cz + dz;
-                        if (isTwoTallAirWithSolidFloor(world, x, y, z)) {
-                            return new PositionData(x + 0.5, y, z + 0.5, desired.yaw, desired.pitch);
-                        }
-                    }
+        PositionData found = RingSearch.firstOutward(cx, cz, 4, (x, z) -> {
+            for (int dy = -2; dy <= 2; dy++) {
+                if (isTwoTallAirWithSolidFloor(world, x, cy + dy, z)) {
+                    return new PositionData(x + 0.5, cy + dy, z + 0.5, desired.yaw, desired.pitch);
                 }
             }
-        }
-        return findSafe(player, targetDim, desired);
+            return null;
+        });
+        if (found != null) return found;
+        return findSafe(world, desired);
     }
 }
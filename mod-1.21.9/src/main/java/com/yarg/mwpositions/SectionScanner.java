@@ -0,0 +1,74 @@
+package com.yarg.mwpositions;
+
+import net.minecraft.block.Block;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.chunk.ChunkSection;
+
+/**
+ * Block scans that work per 16x16x16 chunk section instead of per block. A section's palette is
+ * checked first, so sections that cannot contain the block (or are all air) are skipped whole, and
+ * the remaining blocks are read straight from the section without going through BlockPos lookups.
+ */
+public final class SectionScanner {
+    private SectionScanner() {}
+
+    /** Highest y in [minY, maxY] at (x, z) holding the given block, or Integer.MIN_VALUE if none. */
+    public static int topmost(ServerWorld w, int x, int z, int minY, int maxY, Block block) {
+        ChunkSection[] sections = w.getChunk(x >> 4, z >> 4).getSectionArray();
+        int y = maxY;
+        while (y >= minY) {
+            ChunkSection s = sectionAt(w, sections, y);
+            int sectionBottom = Math.max(minY, ChunkSectionPos.getBlockCoord(ChunkSectionPos.getSectionCoord(y)));
+            if (s != null && !s.isEmpty() && s.hasAny(st -> st.isOf(block))) {
+                for (; y >= sectionBottom; y--) {
+                    if (s.getBlockState(x & 15, y & 15, z & 15).isOf(block)) return y;
+                }
+            }
+            y = sectionBottom - 1;
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    /** True if every block of the box (inclusive bounds) is air. */
+    public static boolean allAir(ServerWorld w, int minX, int maxX, int minY, int maxY, int minZ, int maxZ) {
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                ChunkSection[] sections = w.getChunk(x >> 4, z >> 4).getSectionArray();
+                for (int y = minY; y <= maxY; y++) {
+                    ChunkSection s = sectionAt(w, sections, y);
+                    if (s == null || s.isEmpty()) continue;
+                    if (!s.getBlockState(x & 15, y & 15, z & 15).isAir()) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Walks down from y until the block below is solid (or floorY is reached) and returns that y.
+     * Empty sections are dropped through in one step.
+     */
+    public static int dropToGround(ServerWorld w, int x, int y, int z, int floorY) {
+        ChunkSection[] sections = w.getChunk(x >> 4, z >> 4).getSectionArray();
+        BlockPos.Mutable m = new BlockPos.Mutable();
+        while (y > floorY) {
+            int below = y - 1;
+            ChunkSection s = sectionAt(w, sections, below);
+            if (s == null || s.isEmpty()) {
+                // Nothing to stand on until the bottom of this section
+                y = Math.max(floorY, ChunkSectionPos.getBlockCoord(ChunkSectionPos.getSectionCoord(below)));
+                continue;
+            }
+            if (s.getBlockState(x & 15, below & 15, z & 15).isSolidBlock(w, m.set(x, below, z))) break;
+            y--;
+        }
+        return y;
+    }
+
+    private static ChunkSection sectionAt(ServerWorld w, ChunkSection[] sections, int y) {
+        int idx = w.getSectionIndex(y);
+        return (idx >= 0 && idx < sections.length) ? sections[idx] : null;
+    }
+}
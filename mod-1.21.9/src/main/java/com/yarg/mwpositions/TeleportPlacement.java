@@ -35,7 +35,21 @@ public final class TeleportPlacement {
     }
 
     public static PositionData placeExactlyOrNearby(ServerPlayerEntity player, String targetDim, PositionData desired) {
-        ServerWorld w = (ServerWorld) player.getEntityWorld();
+        PositionData p = resolveExactlyOrNearby((ServerWorld) player.getEntityWorld(), desired);
+        calm(player);
+        player.networkHandler.requestTeleport(p.x, p.y, p.z, p.yaw, p.pitch);
+        return p;
+    }
+
+    public static PositionData resolveExactlyOrNearby(ServerWorld w, PositionData desired) {
+        // Pinned destinations (spawns and the like) have their safe spot cached
+        HotDestinations hot = MultiWorldPositions.getHotDestinations();
+        PositionData cached = hot != null ? hot.safeSpot(w, desired) : null;
+        if (cached != null) return cached;
+        return searchExactlyOrNearby(w, desired);
+    }
+
+    static PositionData searchExactlyOrNearby(ServerWorld w, PositionData desired) {
         int ex = (int) Math.floor(desired.x);
         int ey = (int) Math.floor(desired.y);
         int ez = (int) Math.floor(desired.z);
@@ -51,9 +65,6 @@ public final class TeleportPlacement {
             // Check if there's a solid floor below (at y-1)
             BlockPos floorPos = new BlockPos(ex, ey - 1, ez);
             if (w.getBlockState(floorPos).isSolidBlock(w, floorPos) || ey == w.getBottomY()) {
-                // Safe to teleport to exact position
-                calm(player);
-                player.networkHandler.requestTeleport(desired.x, desired.y, desired.z, desired.yaw, desired.pitch);
                 return desired;
             }
         }
@@ -62,18 +73,12 @@ public final class TeleportPlacement {
         int minY = w.getBottomY();
         for (int y = ey; y >= Math.max(minY, ey - 48); y--) {
             if (SafeLocationFinder.isTwoTallAirWithSolidFloor(w, ex, y, ez)) {
-                PositionData p = new PositionData(ex + 0.5, y, ez + 0.5, desired.yaw, desired.pitch);
-                calm(player);
-                player.networkHandler.requestTeleport(p.x, p.y, p.z, p.yaw, p.pitch);
-                return p;
+                return new PositionData(ex + 0.5, y, ez + 0.5, desired.yaw, desired.pitch);
             }
         }
 
         // Last resort: search nearby area
-        PositionData near = SafeLocationFinder.findSafeNear(player, targetDim, desired, new BlockPos(ex, ey, ez));
-        calm(player);
-        player.networkHandler.requestTeleport(near.x, near.y, near.z, near.yaw, near.pitch);
-        return near;
+        return SafeLocationFinder.findSafeNear(w, desired, new BlockPos(ex, ey, ez));
     }
 
     private static void calm(ServerPlayerEntity player) {
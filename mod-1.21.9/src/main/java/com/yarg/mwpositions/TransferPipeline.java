@@ -0,0 +1,231 @@
+package com.yarg.mwpositions;
+
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Names the stages a transfer goes through and times each of them. A transfer is a Run: its stages run
+ * synchronously (stage) or asynchronously (async), and once it is finished its timings are added to the
+ * totals of its type, reported by /mwp timings. A stage running inside another (e.g. the inventory swap
+ * of the world-change handler during a portal teleport) is only counted once, in the inner stage.
+ * All methods run on the server thread.
+ */
+public final class TransferPipeline {
+    /** What started the transfer. */
+    public enum Type { NETHER_PORTAL, END_PORTAL, COMMAND, ADMIN, WORLD_CHANGE }
+
+    /** Steps of a transfer, in the order they usually run. */
+    public enum Stage {
+        WAIT,           // queue and destination preload
+        RESOLVE,        // target world and arrival spot
+        SAVE_INVENTORY,
+        TELEPORT,
+        LOAD_INVENTORY,
+        FIND_PORTAL,    // return portal or End platform
+        FIND_SAFE_SPOT,
+        PLACE,
+        PERSIST
+    }
+
+    private static final int STAGES = Stage.values().length;
+    // The synchronous part of a transfer ends within its tick; a run left open by an error is dropped after this
+    private static final long STALE_NANOS = 1_000_000_000L;
+
+    private static final class Totals {
+        int count;
+        long totalNanos;
+        long maxNanos;
+        final long[] stageNanos = new long[STAGES];
+    }
+
+    /** One transfer moving through the stages. */
+    public final class Run {
+        final UUID playerId;
+        final Type type;
+        final long startedAt;
+        final long begunAt = System.nanoTime();
+        final long[] nanos = new long[STAGES];
+        long mark;
+        // Time spent in inner stages of the stage running right now
+        long nested;
+        int holds;
+        boolean finished;
+
+        Run(UUID playerId, Type type, long startedAt) {
+            this.playerId = playerId;
+            this.type = type;
+            this.startedAt = startedAt;
+            this.mark = startedAt;
+        }
+
+        public <T> T stage(Stage stage, Supplier<T> step) {
+            long outer = nested;
+            nested = 0;
+            long t0 = System.nanoTime();
+            try {
+                return step.get();
+            } finally {
+                long elapsed = System.nanoTime() - t0;
+                nanos[stage.ordinal()] += elapsed - nested;
+                nested = outer + elapsed;
+                mark = System.nanoTime();
+            }
+        }
+
+        public void stage(Stage stage, Runnable step) {
+            stage(stage, () -> {
+                step.run();
+                return null;
+            });
+        }
+
+        /** Counts the time since the previous stage (or the start) as the given stage. */
+        public void lap(Stage stage) {
+            long now = System.nanoTime();
+            nanos[stage.ordinal()] += now - mark;
+            mark = now;
+        }
+
+        /**
+         * Times a stage that completes later; the returned future completes once it is recorded. Stages
+         * of this run that ran in the meantime (e.g. inside a teleport that finished in the call) are not
+         * counted twice.
+         */
+        public <T> CompletableFuture<T> async(Stage stage, CompletableFuture<T> step) {
+            long t0 = System.nanoTime();
+            long nestedBefore = nested;
+            return step.whenComplete((v, t) -> {
+                long now = System.nanoTime();
+                nanos[stage.ordinal()] += Math.max(0, (now - t0) - (nested - nestedBefore));
+                mark = now;
+            });
+        }
+
+        /** Keeps the run open for asynchronous stages that continue after finish(); pair with release(). */
+        public void hold() {
+            holds++;
+        }
+
+        public void release() {
+            if (--holds == 0 && finished) close();
+        }
+
+        /**
+         * No stages follow here; the run is recorded once every hold is released. Until then it stays the
+         * player's current run, so world changes completing an asynchronous stage are timed as part of it.
+         */
+        public void finish() {
+            if (finished) return;
+            finished = true;
+            if (holds == 0) close();
+        }
+
+        private void close() {
+            active.remove(playerId, this);
+            record(this);
+        }
+
+        /** Drops the run without recording it, e.g. when the teleport failed. */
+        public void abandon() {
+            finished = true;
+            holds = 0;
+            active.remove(playerId, this);
+        }
+    }
+
+    private final Map<UUID, Run> active = new HashMap<>();
+    private final Map<Type, Totals> totals = new EnumMap<>(Type.class);
+
+    /** Starts timing a transfer of the player; replaces any run of theirs that never finished. */
+    public Run begin(ServerPlayerEntity player, Type type) {
+        return begin(player, type, System.nanoTime());
+    }
+
+    /** Same, for a transfer that started earlier (its first lap is measured from startedAt). */
+    public Run begin(ServerPlayerEntity player, Type type, long startedAt) {
+        Run run = new Run(player.getUuid(), type, startedAt);
+        active.put(player.getUuid(), run);
+        return run;
+    }
+
+    /** The player's transfer in progress, or null. */
+    public Run current(ServerPlayerEntity player) {
+        Run run = active.get(player.getUuid());
+        if (run != null && System.nanoTime() - run.begunAt > STALE_NANOS) {
+            active.remove(player.getUuid());
+            return null;
+        }
+        return run;
+    }
+
+    /** Runs a step as a stage of the player's transfer in progress (untimed if there is none). */
+    public <T> T stage(ServerPlayerEntity player, Stage stage, Supplier<T> step) {
+        Run run = current(player);
+        return run != null ? run.stage(stage, step) : step.get();
+    }
+
+    public void stage(ServerPlayerEntity player, Stage stage, Runnable step) {
+        Run run = current(player);
+        if (run != null) run.stage(stage, step);
+        else step.run();
+    }
+
+    public void cancel(UUID playerId) {
+        active.remove(playerId);
+    }
+
+    /** Per transfer type: count, average and worst total, and the average time of each stage. */
+    public List<String> report() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<Type, Totals> e : totals.entrySet()) {
+            Totals t = e.getValue();
+            double avg = ms(t.totalNanos) / t.count;
+            lines.add(String.format(Locale.ROOT, "%s: %d transfers, avg %.2f ms, max %.2f ms",
+                    e.getKey(), t.count, avg, ms(t.maxNanos)));
+            StringBuilder sb = new StringBuilder(" ");
+            for (Stage s : Stage.values()) {
+                long n = t.stageNanos[s.ordinal()];
+                if (n == 0) continue;
+                double stageAvg = ms(n) / t.count;
+                sb.append(String.format(Locale.ROOT, " %s %.2f ms (%.0f%%)", s, stageAvg, avg > 0 ? 100 * stageAvg / avg : 0));
+            }
+            lines.add(sb.toString());
+        }
+        if (lines.isEmpty()) lines.add("No transfers recorded");
+        return lines;
+    }
+
+    public void reset() {
+        totals.clear();
+    }
+
+    private void record(Run run) {
+        long total = System.nanoTime() - run.startedAt;
+        Totals t = totals.computeIfAbsent(run.type, k -> new Totals());
+        t.count++;
+        t.totalNanos += total;
+        t.maxNanos = Math.max(t.maxNanos, total);
+        for (int i = 0; i < STAGES; i++) t.stageNanos[i] += run.nanos[i];
+        if (MultiWorldPositions.getConfig().debugMode) {
+            StringBuilder sb = new StringBuilder();
+            for (Stage s : Stage.values()) {
+                if (run.nanos[s.ordinal()] > 0) sb.append(String.format(Locale.ROOT, " %s=%.2f", s, ms(run.nanos[s.ordinal()])));
+            }
+            MultiWorldPositions.LOGGER.debug("[MWP] Transfer {} took {} ms:{}", run.type,
+                    String.format(Locale.ROOT, "%.2f", ms(total)), sb);
+        }
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,188 @@
+package com.yarg.mwpositions;
+
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.Text;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Spreads bursts of cross-world moves (e.g. everyone running /hub when an event ends) over several
+ * ticks. Each tick admits moves up to a budget of transfers and of estimated chunk loads, highest
+ * priority first; the rest wait in line and see their place on the action bar. Admitted moves then
+ * go through the ArrivalPreloader. All methods run on the server thread.
+ */
+public final class TransferQueue {
+    /** Admission order: portal trips first, then player commands, then admin moves. */
+    public enum Priority { PORTAL, COMMAND, BULK }
+
+    // Waiting players get their place in line refreshed once a second
+    private static final int FEEDBACK_INTERVAL_TICKS = 20;
+
+    private static final class Request {
+        final ServerPlayerEntity player;
+        final String targetDim;
+        final PositionData pos;
+        final Priority priority;
+        final Runnable move;
+        final long queuedAt = System.nanoTime();
+        // Destination resolved when the request first reaches the head of its line
+        DimensionChangeListener.Arrival arrival;
+        boolean resolved;
+        boolean told;
+
+        Request(ServerPlayerEntity player, String targetDim, PositionData pos, Priority priority, Runnable move) {
+            this.player = player;
+            this.targetDim = targetDim;
+            this.pos = pos;
+            this.priority = priority;
+            this.move = move;
+        }
+    }
+
+    private final Map<Priority, ArrayDeque<Request>> waiting = new EnumMap<>(Priority.class);
+    private final Set<UUID> queued = new HashSet<>();
+    private int transfersUsed;
+    private int chunksUsed;
+    private int ticks;
+
+    public TransferQueue() {
+        for (Priority p : Priority.values()) waiting.put(p, new ArrayDeque<>());
+    }
+
+    /**
+     * Queues a move into targetDim that lands at pos; it runs once admitted and its destination is loaded.
+     * Returns false if the player already has a move waiting or still completing.
+     */
+    public boolean submit(ServerPlayerEntity player, Priority priority, String targetDim, PositionData pos, Runnable move) {
+        UUID id = player.getUuid();
+        if (queued.contains(id) || MultiWorldPositions.getArrivalPreloader().isPending(id)
+                || MultiWorldPositions.isTeleportPending(id)) return false;
+        queued.add(id);
+        waiting.get(priority).addLast(new Request(player, targetDim, pos, priority, move));
+        return true;
+    }
+
+    /** Same, for a move whose arrival spot is decided by the restore/redirect logic (see DimensionChangeListener). */
+    public boolean submit(ServerPlayerEntity player, Priority priority, String targetDim, Runnable move) {
+        return submit(player, priority, targetDim, null, move);
+    }
+
+    /**
+     * Takes one transfer from this tick's budget for a portal trip whose destination is already loaded.
+     * Portals are ticked before the queue drains, so they are served first; returns false once the
+     * budget is spent (the player stays in the portal and retries).
+     */
+    public boolean admitPortal() {
+        if (!fits(0)) return false;
+        transfersUsed++;
+        return true;
+    }
+
+    /** Drops the player's waiting move, if any. */
+    public void cancel(UUID playerId) {
+        if (!queued.remove(playerId)) return;
+        for (ArrayDeque<Request> line : waiting.values()) {
+            line.removeIf(r -> r.player.getUuid().equals(playerId));
+        }
+    }
+
+    /** Admits waiting moves within what is left of this tick's budget, then starts a fresh budget. */
+    public void tick() {
+        ticks++;
+        if (!queued.isEmpty()) {
+            int admitted = drain();
+            feedback();
+            if (MultiWorldPositions.getConfig().debugMode && !queued.isEmpty()) {
+                MultiWorldPositions.LOGGER.debug("[MWP] TransferQueue: admitted {} ({} transfers, {} chunk loads this tick), {} waiting",
+                        admitted, transfersUsed, chunksUsed, queued.size());
+            }
+        }
+        transfersUsed = 0;
+        chunksUsed = 0;
+    }
+
+    // Strict priority: once the head of a line does not fit, nothing behind it (or in a lower line) goes either.
+    // A player still completing another move (e.g. a portal trip) goes to the back of the line for this tick.
+    private int drain() {
+        ArrivalPreloader preloader = MultiWorldPositions.getArrivalPreloader();
+        int admitted = 0;
+        for (ArrayDeque<Request> line : waiting.values()) {
+            int deferrals = line.size();
+            while (!line.isEmpty()) {
+                Request r = line.peekFirst();
+                UUID id = r.player.getUuid();
+                if (r.player.isDisconnected()) {
+                    line.pollFirst();
+                    queued.remove(id);
+                    continue;
+                }
+                if (preloader.isPending(id) || MultiWorldPositions.isTeleportPending(id)) {
+                    if (deferrals-- <= 0) break;
+                    line.addLast(line.pollFirst());
+                    continue;
+                }
+                if (!r.resolved) {
+                    r.arrival = (r.pos != null)
+                            ? new DimensionChangeListener.Arrival(r.targetDim, r.pos, false, false)
+                            : preloader.arrivalFor(r.player, r.targetDim);
+                    r.resolved = true;
+                }
+                // Same-world moves load nothing new
+                int chunks = r.arrival != null ? preloader.missingChunks(r.player, r.arrival.dim, r.arrival.pos) : 0;
+                if (!fits(chunks)) return admitted;
+                line.pollFirst();
+                queued.remove(id);
+                transfersUsed++;
+                chunksUsed += chunks;
+                admitted++;
+                if (r.arrival == null) {
+                    timed(r).run();
+                } else if (!preloader.preloadThen(r.player, r.arrival.dim, r.arrival.pos, timed(r))) {
+                    // Not expected after the check above, but a move is never dropped silently
+                    r.player.sendMessage(Text.literal("Transfer cancelled: another move is still in progress"), false);
+                }
+            }
+        }
+        return admitted;
+    }
+
+    // Times the move as a transfer; the time spent in line and preloading counts as its WAIT stage
+    private static Runnable timed(Request r) {
+        return () -> {
+            TransferPipeline.Type type = r.priority == Priority.BULK ? TransferPipeline.Type.ADMIN : TransferPipeline.Type.COMMAND;
+            TransferPipeline.Run run = MultiWorldPositions.getTransferPipeline().begin(r.player, type, r.queuedAt);
+            run.lap(TransferPipeline.Stage.WAIT);
+            try {
+                run.stage(TransferPipeline.Stage.TELEPORT, r.move);
+            } finally {
+                run.finish();
+            }
+        };
+    }
+
+    // At least one move per tick goes through, however many chunks it needs
+    private boolean fits(int chunks) {
+        ModConfig cfg = MultiWorldPositions.getConfig();
+        if (transfersUsed == 0) return true;
+        return transfersUsed < cfg.transferMaxPerTick && chunksUsed + chunks <= cfg.transferChunkLoadsPerTick;
+    }
+
+    // Newly queued players hear about it right away, everyone else once a second
+    private void feedback() {
+        boolean refresh = ticks % FEEDBACK_INTERVAL_TICKS == 0;
+        int place = 0;
+        for (ArrayDeque<Request> line : waiting.values()) {
+            for (Request r : line) {
+                place++;
+                if (r.told && !refresh) continue;
+                r.told = true;
+                r.player.sendMessage(Text.literal("Transfer queued (" + place + " in line)"), true);
+            }
+        }
+    }
+}
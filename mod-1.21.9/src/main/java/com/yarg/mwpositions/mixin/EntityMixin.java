@@ -0,0 +1,39 @@
+package com.yarg.mwpositions.mixin;
+
+import com.yarg.mwpositions.MultiWorldPositions;
+import com.yarg.mwpositions.PlayerSession;
+import com.yarg.mwpositions.PortalKind;
+import com.yarg.mwpositions.PortalLinkService;
+import com.yarg.mwpositions.PositionStorage;
+import net.minecraft.block.EndPortalBlock;
+import net.minecraft.block.NetherPortalBlock;
+import net.minecraft.block.Portal;
+import net.minecraft.entity.Entity;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * NetherPortalBlock/EndPortalBlock.onEntityCollision call tryUsePortal for every entity inside the portal,
+ * which makes it the single place to observe portal contact. Nothing polls portal blocks per tick.
+ */
+@Mixin(Entity.class)
+public abstract class EntityMixin {
+    @Inject(method = "tryUsePortal", at = @At("HEAD"))
+    private void mwp$onPortalContact(Portal portal, BlockPos pos, CallbackInfo ci) {
+        if (!((Object) this instanceof ServerPlayerEntity player)) return;
+        PortalKind kind;
+        if (portal instanceof NetherPortalBlock) kind = PortalKind.NETHER;
+        else if (portal instanceof EndPortalBlock) kind = PortalKind.END;
+        else return; // end gateways are never group-linked
+        // Several overlapped portal blocks fire per tick; only the first contact of a tick goes further
+        if (!PlayerSession.of(player).markPortalContact(kind, player.getEntityWorld().getServer().getTicks())) return;
+        PositionStorage storage = MultiWorldPositions.getPositionStorage();
+        if (storage != null) storage.onPortalContact(player);
+        PortalLinkService links = MultiWorldPositions.getPortalLinkService();
+        if (links != null) links.onPortalContact(player, kind);
+    }
+}
@@ -0,0 +1,50 @@
+package com.yarg.mwpositions.mixin;
+
+import com.yarg.mwpositions.MultiWorldPositions;
+import com.yarg.mwpositions.PortalKind;
+import com.yarg.mwpositions.PortalRedirect;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.NetherPortalBlock;
+import net.minecraft.entity.Entity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.random.Random;
+import net.minecraft.world.TeleportTarget;
+import net.minecraft.world.WorldView;
+import net.minecraft.world.border.WorldBorder;
+import net.minecraft.world.tick.ScheduledTickView;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * With portals handled by vanilla ({@code enablePortals} off), points a group world's Nether portal
+ * straight at the group's linked world. The exit portal is then
+ * found or built by vanilla's portal forcer in that world, at the group's overworld/nether scale.
+ * Also reports portal blocks that collapse, which every portal block does through a neighbour update
+ * once its frame or portal is broken (by players, explosions, pistons, fluids...).
+ */
+@Mixin(NetherPortalBlock.class)
+public abstract class NetherPortalBlockMixin {
+    @Inject(method = "createTeleportTarget", at = @At("HEAD"), cancellable = true)
+    private void mwp$redirectToGroupWorld(ServerWorld world, Entity entity, BlockPos pos, CallbackInfoReturnable<TeleportTarget> cir) {
+        ServerWorld dest = PortalRedirect.destinationFor(world, entity, PortalKind.NETHER);
+        if (dest == null) return;
+        boolean toNether = PortalRedirect.leavesGroupOverworld(world);
+        double scale = toNether ? 0.125 : 8.0; // enforce vanilla scale like the rest of the mod
+        WorldBorder border = dest.getWorldBorder();
+        BlockPos scaled = border.clampFloored(entity.getX() * scale, entity.getY(), entity.getZ() * scale);
+        cir.setReturnValue(PortalRedirect.departing(entity,
+                ((NetherPortalBlockInvoker) (Object) this).mwp$getOrCreateExitPortalTarget(dest, entity, pos, scaled, toNether, border)));
+    }
+
+    @Inject(method = "getStateForNeighborUpdate", at = @At("RETURN"))
+    private void mwp$onPortalBlockRemoved(BlockState state, WorldView world, ScheduledTickView tickView, BlockPos pos, Direction direction,
+                                          BlockPos neighborPos, BlockState neighborState, Random random, CallbackInfoReturnable<BlockState> cir) {
+        if (!cir.getReturnValue().isAir() || !(world instanceof ServerWorld serverWorld)) return;
+        MultiWorldPositions.getPortalRegistry().removeAt(serverWorld, pos);
+        MultiWorldPositions.getPortalLinkCache().invalidateNear(serverWorld, pos);
+    }
+}
@@ -0,0 +1,26 @@
+package com.yarg.mwpositions.mixin;
+
+import com.yarg.mwpositions.DimensionChangeListener;
+import com.yarg.mwpositions.MultiWorldPositions;
+import com.yarg.mwpositions.PositionStorage;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.world.TeleportTarget;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.ModifyVariable;
+
+/**
+ * Every cross-world move (portals, commands, TeleportService) goes through teleportTo, so sampling here
+ * gives AFTER_PLAYER_CHANGE_WORLD an exact origin position. The target is then swapped for the player's
+ * restore/redirect destination so they arrive there in one move.
+ */
+@Mixin(ServerPlayerEntity.class)
+public abstract class ServerPlayerEntityMixin {
+    @ModifyVariable(method = "teleportTo", at = @At("HEAD"), argsOnly = true)
+    private TeleportTarget mwp$beforeTeleportTo(TeleportTarget target) {
+        ServerPlayerEntity self = (ServerPlayerEntity) (Object) this;
+        PositionStorage storage = MultiWorldPositions.getPositionStorage();
+        if (storage != null) storage.updateLastKnown(self);
+        return DimensionChangeListener.resolveArrival(self, target);
+    }
+}
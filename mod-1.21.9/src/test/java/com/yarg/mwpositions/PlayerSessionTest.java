@@ -0,0 +1,31 @@
+package com.yarg.mwpositions;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlayerSessionTest {
+    @Test
+    void recordSampleOverwritesInPlace() {
+        PlayerSession s = new PlayerSession();
+        s.markPortalContact(PortalKind.NETHER, 10);
+        s.recordSample(null, 1.5, 64, -2.5, 90f, 10f, 10, true);
+        assertTrue(s.hasLastKnown);
+        assertEquals(1.5, s.lastX);
+        assertEquals(64, s.lastY);
+        assertEquals(-2.5, s.lastZ);
+        assertEquals(90f, s.lastYaw);
+        assertEquals(10f, s.lastPitch);
+        assertTrue(s.inNetherPortalCell);
+        assertFalse(s.inEndPortalCell);
+        assertTrue(s.coolingEnderPearl);
+
+        // Contact older than the previous tick no longer counts
+        s.recordSample(null, 3, 65, 4, 0f, 0f, 12, false);
+        assertEquals(3, s.lastX);
+        assertFalse(s.inNetherPortalCell);
+        assertFalse(s.coolingEnderPearl);
+    }
+}